@@ -0,0 +1,135 @@
+package com.lecture101.config;
+
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt 해시 계산을 톰캣 요청 스레드가 아닌 전용 스레드 풀에서 실행한다.
+ * 로그인이 몰려도 CPU 코어 수만큼만 해시를 계산하고, 대기열이 가득 차면 바로 거절해서
+ * 상품 조회 등 다른 요청이 밀리지 않게 한다.
+ */
+@Log
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2(a|y|b)?\\$(\\d\\d)\\$");
+
+    private static final String BUSY_MESSAGE = "로그인 요청이 많아 잠시 후 다시 시도해주세요.";
+
+    private final BCryptPasswordEncoder delegate;
+
+    private final int strength;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeoutMillis;
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, long timeoutMillis){
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.strength = strength;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        log.info("비밀번호 해시 설정 (BCrypt strength: " + strength + ", 스레드 수: " + threads
+                + ", 대기열 크기: " + queueCapacity + ")");
+    }
+
+    /**
+     * 주어진 strength 로 해시 한 번에 걸리는 시간(ms)을 측정한다.
+     * strength 를 직접 지정했거나 min/max 로 제한된 경우 목표 시간과 실제 시간이 다르므로 대기열 크기 계산에 사용한다.
+     */
+    public static double measureHashMillis(int strength){
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode("warm-up");
+
+        long start = System.nanoTime();
+        encoder.encode("benchmark");
+        return Math.max((System.nanoTime() - start) / 1_000_000.0, 1);
+    }
+
+    /**
+     * 대기 시간 안에 처리할 수 있는 만큼만 대기열에 받는다. (스레드 수 x 대기 시간 / 해시 한 번의 시간)
+     * 해시를 기다리는 동안 요청 스레드도 묶여 있으므로, 실행 중인 해시와 대기열을 합쳐
+     * 톰캣 요청 스레드의 1/4 을 넘지 않게 해서 나머지 스레드는 다른 요청을 처리하게 한다.
+     */
+    public static int queueCapacity(int threads, long timeoutMillis, double hashMillis, int tomcatMaxThreads){
+        long drainable = (long) (threads * timeoutMillis / Math.max(1, hashMillis));
+        long maxWaiting = tomcatMaxThreads / 4 - threads;
+        return (int) Math.max(1, Math.min(drainable, maxWaiting));
+    }
+
+    /**
+     * 현재 서버에서 해시 한 번이 목표 시간에 가깝게 걸리는 BCrypt strength 를 찾는다.
+     * strength 가 1 오를 때마다 계산 시간이 두 배가 되므로 기준 strength 한 번만 측정한다.
+     */
+    public static int benchmarkStrength(long targetMillis, int minStrength, int maxStrength){
+        double elapsedMillis = measureHashMillis(minStrength);
+
+        int strength = minStrength + (int) Math.floor(Math.log(targetMillis / elapsedMillis) / Math.log(2));
+        return Math.max(minStrength, Math.min(maxStrength, strength));
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        try {
+            return execute(() -> delegate.encode(rawPassword));
+        } catch (LoginBusyException e){
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    //저장된 해시의 strength 가 설정과 다르면 로그인 성공 시 다시 해시한다.
+    //로그인이 몰려 대기 중인 해시가 있으면 다음 로그인으로 미룬다.
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if(encodedPassword == null || !executor.getQueue().isEmpty()){
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(2)) != strength;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> T execute(Callable<T> task){
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e){
+            throw new LoginBusyException(BUSY_MESSAGE);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e){
+            future.cancel(true);
+            throw new LoginBusyException(BUSY_MESSAGE);
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new LoginBusyException(BUSY_MESSAGE);
+        } catch (ExecutionException e){
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+}
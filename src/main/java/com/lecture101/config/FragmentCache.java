@@ -0,0 +1,109 @@
+package com.lecture101.config;
+
+import com.lecture101.dto.MainItemDto;
+import com.lecture101.event.ItemChangedEvent;
+import com.lecture101.service.CatalogVersion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 메인 페이지 상품 카드 목록 조각의 렌더링 결과 캐시. 템플릿에서 ${@fragmentCache...} 로 호출해 th:utext 로 넣는다.
+ * 캐시하는 조각에는 사용자/요청별 값(로그인 정보, CSRF 토큰, @{} 링크)을 쓰지 않는다.
+ * 목록 정보가 바뀔 때마다 증가하는 카탈로그 버전을 키에 포함한다.
+ * footer 같은 정적 조각은 렌더링 비용이 작아 th:replace 를 그대로 쓴다.
+ */
+@Component
+public class FragmentCache {
+
+    @Value("${view.fragment-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${view.fragment-cache.max-entries:1000}")
+    private int maxEntries;
+
+    private final SpringTemplateEngine templateEngine;
+
+    private final CatalogVersion catalogVersion;
+
+    //조회할 때 잠그지 않도록 ConcurrentHashMap 을 쓰고, 최대 개수를 넘으면 전부 비운다.
+    private final ConcurrentHashMap<String, String> fragments = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    public FragmentCache(SpringTemplateEngine templateEngine, CatalogVersion catalogVersion,
+                         MeterRegistry meterRegistry){
+        this.templateEngine = templateEngine;
+        this.catalogVersion = catalogVersion;
+        this.hitCounter = Counter.builder("view.fragment-cache.requests").tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("view.fragment-cache.requests").tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 메인 페이지 상품 카드 목록.
+     * 목록 캐시(MainItemPageCache)가 잠시 이전 결과를 줄 수 있으므로 이미지 경로도 키에 포함한다.
+     */
+    public String renderItemGrid(List<MainItemDto> items){
+        StringBuilder key = new StringBuilder("itemGrid@").append(catalogVersion.getTag());
+        for (MainItemDto item : items) {
+            key.append(':').append(item.getId()).append('=').append(item.getImgUrl());
+        }
+        return render(key.toString(), "fragments/itemGrid", "itemGrid",
+                Collections.singletonMap("items", items));
+    }
+
+    //이전 버전의 목록 조각은 더 이상 쓰이지 않으므로 비운다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event){
+        fragments.keySet().removeIf(key -> key.startsWith("itemGrid@"));
+    }
+
+    private String render(String key, String template, String fragment, Map<String, Object> variables){
+        if(!enabled){
+            return process(template, fragment, variables);
+        }
+
+        String html = fragments.get(key);
+        if(html != null){
+            hitCounter.increment();
+            return html;
+        }
+        missCounter.increment();
+
+        String version = catalogVersion.getTag();
+        html = process(template, fragment, variables);
+        //렌더링 도중 상품이 바뀌었으면 캐시에 넣지 않는다.
+        if(version.equals(catalogVersion.getTag())){
+            put(key, html);
+        }
+        return html;
+    }
+
+    private String process(String template, String fragment, Map<String, Object> variables){
+        Context context = new Context();
+        context.setVariables(variables);
+        return templateEngine.process(template, Collections.singleton(fragment), context);
+    }
+
+    //키에 카탈로그 버전이 들어가 이전 버전 조각은 다시 쓰이지 않으므로, 가득 차면 LRU 대신 전부 비운다.
+    private void put(String key, String html){
+        if(fragments.size() >= maxEntries){
+            fragments.clear();
+        }
+        fragments.put(key, html);
+    }
+
+}
@@ -0,0 +1,249 @@
+package com.lecture101.config;
+
+import com.lecture101.service.FileService;
+import com.lecture101.service.ImageHotSet;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Pattern;
+
+/**
+ * 업로드 이미지(/images/*) 전용 서블릿.
+ * DispatcherServlet 과 Spring Security 필터를 거치지 않고 파일을 바로 내려준다.
+ * ETag/Last-Modified 조건부 요청, 단일 Range 요청을 처리하며
+ * 자주 요청되는 작은 파일은 메모리에서, 큰 파일은 Tomcat sendfile 로 보낸다.
+ */
+public class ImageServlet extends HttpServlet {
+
+    //내용 해시 파일명(축소 이미지 포함)은 내용이 바뀌지 않으므로 영구 캐시한다.
+    private static final Pattern CONTENT_HASH_NAME = Pattern.compile("[0-9a-f]{64}(_[a-z]+)?\\.[a-z0-9]+");
+
+    private static final long IMMUTABLE_MAX_AGE = 31536000;
+
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    //이보다 작은 응답은 sendfile 준비 비용이 더 크므로 직접 쓴다.
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private final Path root;
+
+    private final FileService fileService;
+
+    private final ImageHotSet imageHotSet;
+
+    private final long maxAgeSeconds;
+
+    public ImageServlet(Path root, FileService fileService, ImageHotSet imageHotSet, long maxAgeSeconds){
+        this.root = root.toAbsolutePath().normalize();
+        this.fileService = fileService;
+        this.imageHotSet = imageHotSet;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(request, response, true);
+    }
+
+    @Override
+    protected void doHead(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(request, response, false);
+    }
+
+    private void serve(HttpServletRequest request, HttpServletResponse response, boolean content) throws IOException {
+        Path file = resolve(request.getPathInfo());
+        BasicFileAttributes attributes;
+        try {
+            attributes = file == null ? null : Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e){
+            attributes = null;
+        }
+        if(attributes == null || !attributes.isRegularFile()){
+            if(file != null){
+                imageHotSet.evict(file);
+            }
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String fileName = file.getFileName().toString();
+        boolean immutable = CONTENT_HASH_NAME.matcher(fileName).matches();
+        String etag = immutable ? "\"" + fileName + "\""
+                : "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Cache-Control", immutable ? "public, max-age=" + IMMUTABLE_MAX_AGE + ", immutable"
+                : "public, max-age=" + maxAgeSeconds);
+        response.setHeader("Accept-Ranges", "bytes");
+
+        if(isNotModified(request, etag, lastModified)){
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader("Range");
+        if(range != null && isRangeCurrent(request, etag, lastModified)){
+            long[] requested = parseRange(range, length);
+            if(requested != null && requested.length == 0){
+                response.setHeader("Content-Range", "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if(requested != null){
+                start = requested[0];
+                end = requested[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        String contentType = getServletContext().getMimeType(fileName);
+        response.setContentType(contentType != null ? contentType : "application/octet-stream");
+        long contentLength = end - start + 1;
+        response.setContentLengthLong(contentLength);
+        if(!content || contentLength <= 0){
+            return;
+        }
+
+        byte[] bytes = imageHotSet.get(file, length, lastModified);
+        if(bytes != null){
+            response.getOutputStream().write(bytes, (int) start, (int) contentLength);
+            return;
+        }
+
+        //Tomcat 이 요청 스레드를 돌려준 뒤 커널에서 바로 소켓으로 복사한다.
+        if(contentLength >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))){
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while(position <= end){
+                long transferred = channel.transferTo(position, end + 1 - position, out);
+                //크기를 읽은 뒤 파일이 줄었으면(덮어쓰기, 분할 디렉터리 이동) 더 보낼 내용이 없다.
+                if(transferred <= 0){
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * 요청 경로(/item/파일명)의 파일을 분할 디렉터리(item/ab/cd/파일명)에서 먼저 찾고, 없으면 요청 경로 그대로 찾는다.
+     * 이전 URL 은 바꾸지 않아도 된다. 업로드 경로 밖의 파일은 내려주지 않는다.
+     */
+    private Path resolve(String pathInfo){
+        if(pathInfo == null || pathInfo.length() <= 1){
+            return null;
+        }
+        Path file = root.resolve(pathInfo.substring(1)).normalize();
+        if(!file.startsWith(root) || file.equals(root)){
+            return null;
+        }
+        Path located = fileService.locate(file.getParent(), file.getFileName().toString());
+        return located != null ? located : file;
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified){
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if(ifNoneMatch != null){
+            for (String candidate : ifNoneMatch.split(",")) {
+                String value = candidate.trim();
+                if(value.startsWith("W/")){
+                    value = value.substring(2);
+                }
+                if(value.equals("*") || value.equals(etag)){
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long ifModifiedSince = dateHeader(request, "If-Modified-Since");
+        return ifModifiedSince >= 0 && lastModified / 1000 * 1000 <= ifModifiedSince;
+    }
+
+    //If-Range 가 현재 파일과 다르면 Range 를 무시하고 전체를 내려준다.
+    private boolean isRangeCurrent(HttpServletRequest request, String etag, long lastModified){
+        String ifRange = request.getHeader("If-Range");
+        if(ifRange == null){
+            return true;
+        }
+        if(ifRange.trim().startsWith("\"")){
+            return ifRange.trim().equals(etag);
+        }
+        return lastModified / 1000 * 1000 == dateHeader(request, "If-Range");
+    }
+
+    private long dateHeader(HttpServletRequest request, String name){
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e){
+            return -1;
+        }
+    }
+
+    /**
+     * bytes=a-b, bytes=a-, bytes=-n 형식의 단일 범위를 {시작, 끝} 으로 돌려준다.
+     * 형식이 잘못됐거나 여러 범위면 null(전체 응답), 파일 범위를 벗어나면 빈 배열(416)을 돌려준다.
+     */
+    static long[] parseRange(String range, long length){
+        if(!range.startsWith("bytes=") || range.indexOf(',') >= 0){
+            return null;
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if(dash < 0){
+            return null;
+        }
+
+        try {
+            if(dash == 0){
+                long suffix = Long.parseLong(spec.substring(1));
+                if(suffix <= 0 || length == 0){
+                    return new long[0];
+                }
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+
+            long start = Long.parseLong(spec.substring(0, dash));
+            long end = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1));
+            if(end < start){
+                return null;
+            }
+            if(start >= length){
+                return new long[0];
+            }
+            return new long[]{start, Math.min(end, length - 1)};
+        } catch (NumberFormatException e){
+            return null;
+        }
+    }
+
+}
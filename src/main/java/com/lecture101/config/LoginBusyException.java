@@ -0,0 +1,14 @@
+package com.lecture101.config;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * 비밀번호 검증 대기열이 가득 차서 로그인을 처리하지 못한 경우.
+ */
+public class LoginBusyException extends AuthenticationServiceException {
+
+    public LoginBusyException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.lecture101.config;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * 로그인 회원 정보. 회원 아이디를 함께 들고 있어서 요청마다 이메일로 회원을 다시 조회하지 않는다.
+ */
+@Getter
+public class MemberPrincipal extends User {
+
+    private final Long memberId;
+
+    public MemberPrincipal(Long memberId, String email, String password,
+                           Collection<? extends GrantedAuthority> authorities){
+        super(email, password, authorities);
+        this.memberId = memberId;
+    }
+
+}
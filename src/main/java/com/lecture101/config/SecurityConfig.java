@@ -2,17 +2,22 @@ package com.lecture101.config;
 
 import com.lecture101.service.MemberService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.ExceptionMappingAuthenticationFailureHandler;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
+import java.util.Collections;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
@@ -20,13 +25,40 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     MemberService memberService;
 
+    //0 이면 시작 시 측정해서 정한다.
+    @Value("${security.password.bcrypt-strength:0}")
+    private int bcryptStrength;
+
+    @Value("${security.password.target-millis:100}")
+    private long targetMillis;
+
+    @Value("${security.password.min-strength:10}")
+    private int minStrength;
+
+    @Value("${security.password.max-strength:12}")
+    private int maxStrength;
+
+    //0 이면 CPU 코어 수
+    @Value("${security.password.hash-threads:0}")
+    private int hashThreads;
+
+    //0 이면 스레드 수, 대기 시간, 목표 해시 시간과 톰캣 스레드 수로 정한다.
+    @Value("${security.password.hash-queue-capacity:0}")
+    private int hashQueueCapacity;
+
+    @Value("${security.password.hash-timeout-millis:3000}")
+    private long hashTimeoutMillis;
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int tomcatMaxThreads;
+
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http.formLogin()
                 .loginPage("/members/login")
                 .defaultSuccessUrl("/")
                 .usernameParameter("email")
-                .failureUrl("/members/login/error")
+                .failureHandler(loginFailureHandler())
                 .and()
                 .logout()
                 .logoutRequestMatcher(new AntPathRequestMatcher("/members/logout"))
@@ -34,8 +66,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         ;
 
         http.authorizeRequests()
-                .mvcMatchers("/", "/members/**", "/item/**", "/images/**").permitAll()
-                .mvcMatchers("/admin/**").hasRole("ADMIN")
+                .mvcMatchers("/", "/members/**", "/item/**").permitAll()
+                .mvcMatchers(HttpMethod.GET, "/api/items/**").permitAll()
+                .mvcMatchers("/admin/**", "/actuator/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
         ;
 
@@ -46,7 +79,23 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int strength = bcryptStrength > 0 ? bcryptStrength
+                : BoundedPasswordEncoder.benchmarkStrength(targetMillis, minStrength, maxStrength);
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        //strength 를 지정했거나 min/max 로 제한되면 목표 시간과 달라지므로 실제 해시 시간으로 계산한다.
+        int queueCapacity = hashQueueCapacity > 0 ? hashQueueCapacity
+                : BoundedPasswordEncoder.queueCapacity(threads, hashTimeoutMillis,
+                        BoundedPasswordEncoder.measureHashMillis(strength), tomcatMaxThreads);
+        return new BoundedPasswordEncoder(strength, threads, queueCapacity, hashTimeoutMillis);
+    }
+
+    //비밀번호 검증 대기열이 가득 찬 경우는 로그인 실패와 구분해서 안내한다.
+    private AuthenticationFailureHandler loginFailureHandler() {
+        ExceptionMappingAuthenticationFailureHandler failureHandler = new ExceptionMappingAuthenticationFailureHandler();
+        failureHandler.setDefaultFailureUrl("/members/login/error");
+        failureHandler.setExceptionMappings(Collections.singletonMap(
+                LoginBusyException.class.getName(), "/members/login/busy"));
+        return failureHandler;
     }
 
     @Override
@@ -57,7 +106,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     @Override
     public void configure(WebSecurity web) throws Exception {
-        web.ignoring().antMatchers("/css/**", "/js/**", "/img/**");
+        //업로드 이미지는 공개 리소스이므로 보안 필터를 거치지 않는다.
+        web.ignoring().antMatchers("/css/**", "/js/**", "/img/**", "/images/**");
     }
 
 }
\ No newline at end of file
@@ -1,20 +1,33 @@
 package com.lecture101.config;
 
+import com.lecture101.service.FileService;
+import com.lecture101.service.ImageHotSet;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.util.ResourceUtils;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.io.FileNotFoundException;
+
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
     @Value("${uploadPath}")
     String uploadPath;
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/images/**")
-                .addResourceLocations(uploadPath);
+    @Value("${image.cache-max-age-seconds:3600}")
+    long imageMaxAgeSeconds;
+
+    //업로드 이미지는 DispatcherServlet 대신 전용 서블릿이 처리한다.
+    @Bean
+    public ServletRegistrationBean<ImageServlet> imageServlet(FileService fileService, ImageHotSet imageHotSet) throws FileNotFoundException {
+        ImageServlet imageServlet = new ImageServlet(ResourceUtils.getFile(uploadPath).toPath(),
+                fileService, imageHotSet, imageMaxAgeSeconds);
+        ServletRegistrationBean<ImageServlet> registration = new ServletRegistrationBean<>(imageServlet, "/images/*");
+        registration.setName("imageServlet");
+        return registration;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,5 @@
+package com.lecture101.constant;
+
+public enum CountMode {
+    EXACT, CACHED, CAPPED
+}
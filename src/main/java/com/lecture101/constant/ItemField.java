@@ -0,0 +1,71 @@
+package com.lecture101.constant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 상품 API 에서 fields 파라미터로 고를 수 있는 필드.
+ * column 이 false 인 필드는 item 테이블 컬럼이 아니라 상세 조회에서 따로 읽는다.
+ */
+public enum ItemField {
+    ID("id", true),
+    ITEM_NM("itemNm", true),
+    ITEM_DETAIL("itemDetail", true),
+    PRICE("price", true),
+    IMG_URL("imgUrl", true),
+    ITEM_SELL_STATUS("itemSellStatus", true),
+    STOCK_NUMBER("stockNumber", false),
+    IMAGES("images", false);
+
+    private final String fieldName;
+
+    private final boolean column;
+
+    ItemField(String fieldName, boolean column){
+        this.fieldName = fieldName;
+        this.column = column;
+    }
+
+    public String getFieldName(){
+        return fieldName;
+    }
+
+    public boolean isColumn(){
+        return column;
+    }
+
+    /**
+     * "id,itemNm,price" 형식의 목록을 필드로 바꾼다. 비어 있으면 전체 필드이고, id 는 항상 첫 번째로 포함한다.
+     * 모르는 필드명이면 IllegalArgumentException 을 던진다.
+     */
+    public static List<ItemField> parse(String fields){
+        List<ItemField> result = new ArrayList<>();
+        result.add(ID);
+        if(fields == null || fields.trim().isEmpty()){
+            for (ItemField field : values()) {
+                if(field != ID){
+                    result.add(field);
+                }
+            }
+            return result;
+        }
+
+        for (String name : fields.split(",")) {
+            ItemField field = of(name.trim());
+            if(!result.contains(field)){
+                result.add(field);
+            }
+        }
+        return result;
+    }
+
+    private static ItemField of(String fieldName){
+        for (ItemField field : values()) {
+            if(field.fieldName.equals(fieldName)){
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("지원하지 않는 필드입니다: " + fieldName);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.lecture101.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.security.Principal;
+import java.util.Objects;
+
+/**
+ * 화면 조건부 GET(ETag/Last-Modified) 처리.
+ * 화면에는 로그인 메뉴와 CSRF 토큰이 들어가므로 사용자별 값을 ETag 에 섞고,
+ * 공유 캐시에는 저장되지 않도록 private 으로 응답한다. 브라우저는 매번 재검증한다.
+ */
+final class ConditionalGetSupport {
+
+    private ConditionalGetSupport(){
+    }
+
+    //true 면 304 응답이 설정된 것이므로 화면을 그리지 않는다.
+    static boolean checkNotModified(ServletWebRequest webRequest, String tag, long lastModified,
+                                    boolean includeCsrfToken){
+        HttpServletResponse response = webRequest.getResponse();
+        if(response != null){
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.COOKIE);
+        }
+        String etag = "W/\"" + tag + "-" + userTag(webRequest.getRequest(), includeCsrfToken) + "\"";
+        return webRequest.checkNotModified(etag, lastModified);
+    }
+
+    private static String userTag(HttpServletRequest request, boolean includeCsrfToken){
+        Principal principal = request.getUserPrincipal();
+        CsrfToken csrfToken = includeCsrfToken ? (CsrfToken) request.getAttribute(CsrfToken.class.getName()) : null;
+        return Integer.toHexString(Objects.hash(principal == null ? null : principal.getName(),
+                csrfToken == null ? null : csrfToken.getToken()));
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.lecture101.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lecture101.constant.ItemField;
+import com.lecture101.dto.CatalogItemDto;
+import com.lecture101.dto.ItemImgDto;
+import com.lecture101.service.ItemCatalogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityNotFoundException;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 앱용 상품 조회 JSON API.
+ * fields 파라미터로 필요한 필드만 조회하고, 응답은 객체를 만들지 않고 JsonGenerator 로 바로 쓴다.
+ */
+@RestController
+@RequestMapping("/api/items")
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private final ItemCatalogService itemCatalogService;
+
+    private final ObjectMapper objectMapper;
+
+    //{"items":[...], "nextCursor": 다음 요청의 cursor (마지막이면 null)}
+    @GetMapping
+    public void items(@RequestParam(value = "searchQuery", required = false) String searchQuery,
+                      @RequestParam(value = "cursor", required = false) Long cursor,
+                      @RequestParam(value = "size", defaultValue = "20") int size,
+                      @RequestParam(value = "fields", required = false) String fields,
+                      HttpServletResponse response) throws IOException {
+        List<ItemField> itemFields = ItemField.parse(fields);
+        List<ItemField> columnFields = ItemCatalogService.columnFields(itemFields);
+        List<Object[]> rows = itemCatalogService.getItemSlice(searchQuery, cursor, size, itemFields);
+
+        try (JsonGenerator generator = createGenerator(response)) {
+            generator.writeStartObject();
+            writeItems(generator, rows, columnFields);
+            generator.writeFieldName("nextCursor");
+            if(rows.size() < Math.min(Math.max(size, 1), ItemCatalogService.MAX_SIZE)){
+                generator.writeNull();
+            } else {
+                generator.writeNumber((Long) rows.get(rows.size() - 1)[0]);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    //ids=1,2,3 순서대로 돌려주며 없는 상품은 빠진다. {"items":[...]}
+    @GetMapping("/batch")
+    public void batch(@RequestParam("ids") List<Long> ids,
+                      @RequestParam(value = "fields", required = false) String fields,
+                      HttpServletResponse response) throws IOException {
+        List<ItemField> itemFields = ItemField.parse(fields);
+        List<Object[]> rows = itemCatalogService.getItems(ids, itemFields);
+
+        try (JsonGenerator generator = createGenerator(response)) {
+            generator.writeStartObject();
+            writeItems(generator, rows, ItemCatalogService.columnFields(itemFields));
+            generator.writeEndObject();
+        }
+    }
+
+    @GetMapping("/{itemId}")
+    public void item(@PathVariable("itemId") Long itemId,
+                     @RequestParam(value = "fields", required = false) String fields,
+                     HttpServletResponse response) throws IOException {
+        List<ItemField> itemFields = ItemField.parse(fields);
+        CatalogItemDto catalogItemDto = itemCatalogService.getItem(itemId, itemFields);
+
+        try (JsonGenerator generator = createGenerator(response)) {
+            generator.writeStartObject();
+            writeColumns(generator, catalogItemDto.getRow(), ItemCatalogService.columnFields(itemFields));
+            if(catalogItemDto.getStockNumber() != null){
+                generator.writeNumberField(ItemField.STOCK_NUMBER.getFieldName(), catalogItemDto.getStockNumber());
+            }
+            if(catalogItemDto.getItemImgDtoList() != null){
+                generator.writeArrayFieldStart(ItemField.IMAGES.getFieldName());
+                for (ItemImgDto itemImgDto : catalogItemDto.getItemImgDtoList()) {
+                    generator.writeStartObject();
+                    generator.writeStringField("imgUrl", itemImgDto.getImgUrl());
+                    generator.writeStringField("detailImgUrl", itemImgDto.getDetailImgUrl());
+                    generator.writeStringField("repImgYn", itemImgDto.getRepImgYn());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    //오류도 JSON 으로 돌려준다. {"message": 오류 메시지}
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e){
+        return error(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<Map<String, String>> notFound(){
+        return error(HttpStatus.NOT_FOUND, "존재하지 않는 상품 입니다.");
+    }
+
+    private ResponseEntity<Map<String, String>> error(HttpStatus status, String message){
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON)
+                .body(Collections.singletonMap("message", message));
+    }
+
+    private JsonGenerator createGenerator(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        return objectMapper.getFactory().createGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+    }
+
+    private void writeItems(JsonGenerator generator, List<Object[]> rows, List<ItemField> columnFields)
+            throws IOException {
+        generator.writeArrayFieldStart("items");
+        for (Object[] row : rows) {
+            generator.writeStartObject();
+            writeColumns(generator, row, columnFields);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeColumns(JsonGenerator generator, Object[] row, List<ItemField> columnFields)
+            throws IOException {
+        for(int i=0;i<columnFields.size();i++){
+            generator.writeFieldName(columnFields.get(i).getFieldName());
+            Object value = row[i];
+            if(value == null){
+                generator.writeNull();
+            } else if(value instanceof Long){
+                generator.writeNumber((Long) value);
+            } else if(value instanceof Integer){
+                generator.writeNumber((Integer) value);
+            } else if(value instanceof Enum){
+                generator.writeString(((Enum<?>) value).name());
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+    }
+
+}
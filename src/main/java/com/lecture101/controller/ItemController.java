@@ -1,7 +1,10 @@
 package com.lecture101.controller;
 
+import com.lecture101.dto.ItemCursorDto;
 import com.lecture101.dto.ItemFormDto;
 import com.lecture101.dto.ItemSearchDto;
+import com.lecture101.dto.ItemSliceDto;
+import com.lecture101.dto.ItemVersionDto;
 import com.lecture101.entity.Item;
 import com.lecture101.service.ItemService;
 import lombok.RequiredArgsConstructor;
@@ -15,7 +18,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.thymeleaf.util.StringUtils;
 
 import javax.persistence.EntityNotFoundException;
 import javax.validation.Valid;
@@ -95,7 +100,24 @@ public class ItemController {
     }
 
     @GetMapping(value = {"/admin/items", "/admin/items/{page}"})
-    public String itemManage(ItemSearchDto itemSearchDto, @PathVariable("page") Optional<Integer> page, Model model){
+    public String itemManage(ItemSearchDto itemSearchDto, @PathVariable("page") Optional<Integer> page,
+                             @RequestParam(value = "cursor", required = false) String cursor, Model model){
+
+        //커서가 있으면 id 기준 seek 방식으로 다음 목록 조회
+        if(!StringUtils.isEmpty(cursor)){
+            try {
+                ItemCursorDto itemCursorDto = ItemCursorDto.decode(cursor);
+                ItemSliceDto<Item> items = itemService.getAdminItemSlice(itemCursorDto, 3);
+
+                model.addAttribute("items", items);
+                model.addAttribute("itemSearchDto", itemCursorDto.getItemSearchDto());
+                model.addAttribute("cursorMode", true);
+                model.addAttribute("nextCursor", items.getNextCursor());
+                return "item/itemMng";
+            } catch (IllegalArgumentException e){
+                //잘못된 커서는 첫 페이지 조회로 대체
+            }
+        }
 
         Pageable pageable = PageRequest.of(page.isPresent() ? page.get() : 0, 3);
         Page<Item> items = itemService.getAdminItemPage(itemSearchDto, pageable);
@@ -103,12 +125,30 @@ public class ItemController {
         model.addAttribute("items", items);
         model.addAttribute("itemSearchDto", itemSearchDto);
         model.addAttribute("maxPage", 5);
+        model.addAttribute("cursorMode", false);
+        model.addAttribute("nextCursor", nextCursor(items, itemSearchDto));
 
         return "item/itemMng";
     }
 
+    //번호 페이지에서 이어서 조회할 수 있도록 마지막 상품 기준 커서를 만든다.
+    private String nextCursor(Page<Item> items, ItemSearchDto itemSearchDto){
+        if(!items.hasNext() || !items.hasContent()){
+            return null;
+        }
+        Long lastId = items.getContent().get(items.getNumberOfElements() - 1).getId();
+        return ItemCursorDto.of(lastId, itemSearchDto).encode();
+    }
+
     @GetMapping(value = "/item/{itemId}")
-    public String itemDtl(Model model, @PathVariable("itemId") Long itemId){
+    public String itemDtl(Model model, @PathVariable("itemId") Long itemId, ServletWebRequest webRequest){
+        //바뀐 것이 없으면 이미지 목록/재고를 읽지 않고 304 로 응답
+        ItemVersionDto itemVersionDto = itemService.getItemDtlVersion(itemId);
+        if(itemVersionDto != null && ConditionalGetSupport.checkNotModified(webRequest,
+                itemVersionDto.getTag(), itemVersionDto.getLastModified(), true)){
+            return null;
+        }
+
         ItemFormDto itemFormDto = itemService.getItemDtl(itemId);
         model.addAttribute("item", itemFormDto);
         return "item/itemDtl";
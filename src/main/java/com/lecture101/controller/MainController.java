@@ -1,7 +1,10 @@
 package com.lecture101.controller;
 
+import com.lecture101.dto.ItemCursorDto;
 import com.lecture101.dto.ItemSearchDto;
+import com.lecture101.dto.ItemSliceDto;
 import com.lecture101.dto.MainItemDto;
+import com.lecture101.service.CatalogVersion;
 import com.lecture101.service.ItemService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -10,6 +13,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.thymeleaf.util.StringUtils;
 
 import java.util.Optional;
 
@@ -19,8 +25,34 @@ public class MainController {
 
     private final ItemService itemService;
 
+    private final CatalogVersion catalogVersion;
+
     @GetMapping(value = "/")
-    public String main(ItemSearchDto itemSearchDto, Optional<Integer> page, Model model){
+    public String main(ItemSearchDto itemSearchDto, Optional<Integer> page,
+                       @RequestParam(value = "cursor", required = false) String cursor, Model model,
+                       ServletWebRequest webRequest){
+
+        //목록 정보가 바뀌지 않았으면 목록을 조회하지 않고 304 로 응답
+        if(ConditionalGetSupport.checkNotModified(webRequest, "main-" + catalogVersion.getTag(),
+                catalogVersion.getLastModified(), false)){
+            return null;
+        }
+
+        //커서가 있으면 id 기준 seek 방식으로 다음 목록 조회
+        if(!StringUtils.isEmpty(cursor)){
+            try {
+                ItemCursorDto itemCursorDto = ItemCursorDto.decode(cursor);
+                ItemSliceDto<MainItemDto> items = itemService.getMainItemSlice(itemCursorDto, 6);
+
+                model.addAttribute("items", items);
+                model.addAttribute("itemSearchDto", itemCursorDto.getItemSearchDto());
+                model.addAttribute("cursorMode", true);
+                model.addAttribute("nextCursor", items.getNextCursor());
+                return "main";
+            } catch (IllegalArgumentException e){
+                //잘못된 커서는 첫 페이지 조회로 대체
+            }
+        }
 
         Pageable pageable = PageRequest.of(page.isPresent() ? page.get() : 0, 6);
         Page<MainItemDto> items = itemService.getMainItemPage(itemSearchDto, pageable);
@@ -28,8 +60,19 @@ public class MainController {
         model.addAttribute("items", items);
         model.addAttribute("itemSearchDto", itemSearchDto);
         model.addAttribute("maxPage", 5);
+        model.addAttribute("cursorMode", false);
+        model.addAttribute("nextCursor", nextCursor(items, itemSearchDto));
 
         return "main";
     }
 
-}
\ No newline at end of file
+    //번호 페이지에서 이어서 스크롤할 수 있도록 마지막 상품 기준 커서를 만든다.
+    private String nextCursor(Page<MainItemDto> items, ItemSearchDto itemSearchDto){
+        if(!items.hasNext() || !items.hasContent()){
+            return null;
+        }
+        Long lastId = items.getContent().get(items.getNumberOfElements() - 1).getId();
+        return ItemCursorDto.of(lastId, itemSearchDto).encode();
+    }
+
+}
@@ -4,6 +4,7 @@ import com.lecture101.dto.MemberFormDto;
 import com.lecture101.entity.Member;
 import com.lecture101.service.MemberService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 @RequestMapping("/members")
@@ -57,4 +59,11 @@ public class MemberController {
         return "/member/memberLoginForm";
     }
 
+    @GetMapping(value = "/login/busy")
+    public String loginBusy(Model model, HttpServletResponse response){
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        model.addAttribute("loginErrorMsg", "로그인 요청이 많아 잠시 후 다시 시도해주세요.");
+        return "/member/memberLoginForm";
+    }
+
 }
\ No newline at end of file
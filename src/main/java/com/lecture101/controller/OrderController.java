@@ -1,7 +1,11 @@
 package com.lecture101.controller;
 
+import com.lecture101.config.MemberPrincipal;
 import com.lecture101.dto.OrderDto;
 import com.lecture101.dto.OrderHistDto;
+import com.lecture101.dto.OrderIntakeDto;
+import com.lecture101.exception.OrderQueueFullException;
+import com.lecture101.service.OrderIntakeQueue;
 import com.lecture101.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -9,6 +13,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -16,7 +21,6 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.security.Principal;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,9 +30,11 @@ public class OrderController {
 
     private final OrderService orderService;
 
+    private final OrderIntakeQueue orderIntakeQueue;
+
     @PostMapping(value = "/order")
     public @ResponseBody ResponseEntity order(@RequestBody @Valid OrderDto orderDto
-            , BindingResult bindingResult, Principal principal){
+            , BindingResult bindingResult, @AuthenticationPrincipal MemberPrincipal principal){
 
         if(bindingResult.hasErrors()){
             StringBuilder sb = new StringBuilder();
@@ -41,11 +47,22 @@ public class OrderController {
             return new ResponseEntity<String>(sb.toString(), HttpStatus.BAD_REQUEST);
         }
 
-        String email = principal.getName();
+        Long memberId = principal.getMemberId();
+
+        //주문 접수 모드에서는 큐에 넣고 접수 번호만 돌려준다.
+        if(orderIntakeQueue.isEnabled()){
+            try {
+                String token = orderIntakeQueue.submit(orderDto, memberId);
+                return new ResponseEntity<OrderIntakeDto>(orderIntakeQueue.getStatus(token, memberId), HttpStatus.ACCEPTED);
+            } catch(OrderQueueFullException e){
+                return new ResponseEntity<String>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+            }
+        }
+
         Long orderId;
 
         try {
-            orderId = orderService.order(orderDto, email);
+            orderId = orderService.order(orderDto, memberId);
         } catch(Exception e){
             return new ResponseEntity<String>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -53,11 +70,20 @@ public class OrderController {
         return new ResponseEntity<Long>(orderId, HttpStatus.OK);
     }
 
+    @GetMapping(value = "/order/status/{token}")
+    public @ResponseBody ResponseEntity orderStatus(@PathVariable("token") String token, @AuthenticationPrincipal MemberPrincipal principal){
+        OrderIntakeDto orderIntakeDto = orderIntakeQueue.getStatus(token, principal.getMemberId());
+        if(orderIntakeDto == null){
+            return new ResponseEntity<String>("접수된 주문이 없습니다.", HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<OrderIntakeDto>(orderIntakeDto, HttpStatus.OK);
+    }
+
     @GetMapping(value = {"/orders", "/orders/{page}"})
-    public String orderHist(@PathVariable("page") Optional<Integer> page, Principal principal, Model model){
+    public String orderHist(@PathVariable("page") Optional<Integer> page, @AuthenticationPrincipal MemberPrincipal principal, Model model){
 
         Pageable pageable = PageRequest.of(page.isPresent() ? page.get() : 0, 4);
-        Page<OrderHistDto> ordersHistDtoList = orderService.getOrderList(principal.getName(), pageable);
+        Page<OrderHistDto> ordersHistDtoList = orderService.getOrderList(principal.getMemberId(), pageable);
 
         model.addAttribute("orders", ordersHistDtoList);
         model.addAttribute("page", pageable.getPageNumber());
@@ -67,9 +93,9 @@ public class OrderController {
     }
 
     @PostMapping("/order/{orderId}/cancel")
-    public @ResponseBody ResponseEntity cancelOrder(@PathVariable("orderId") Long orderId , Principal principal){
+    public @ResponseBody ResponseEntity cancelOrder(@PathVariable("orderId") Long orderId , @AuthenticationPrincipal MemberPrincipal principal){
 
-        if(!orderService.validateOrder(orderId, principal.getName())){
+        if(!orderService.validateOrder(orderId, principal.getMemberId())){
             return new ResponseEntity<String>("주문 취소 권한이 없습니다.", HttpStatus.FORBIDDEN);
         }
 
@@ -0,0 +1,18 @@
+package com.lecture101.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+//상품 JSON API 단건 조회 결과
+@Getter @Setter
+public class CatalogItemDto {
+
+    private Object[] row; //ItemCatalogService.columnFields(fields) 순서의 컬럼 값
+
+    private Integer stockNumber; //요청하지 않았으면 null
+
+    private List<ItemImgDto> itemImgDtoList; //요청하지 않았으면 null
+
+}
@@ -0,0 +1,76 @@
+package com.lecture101.dto;
+
+import com.lecture101.constant.ItemSellStatus;
+import lombok.Getter;
+import lombok.Setter;
+import org.thymeleaf.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+@Getter @Setter
+public class ItemCursorDto {
+
+    private static final String VERSION = "1";
+
+    private static final String SEPARATOR = "\u001F";
+
+    private Long lastId; //마지막으로 조회한 상품 아이디
+
+    private ItemSearchDto itemSearchDto; //커서에 담긴 검색 조건
+
+    public static ItemCursorDto of(Long lastId, ItemSearchDto itemSearchDto){
+        ItemCursorDto itemCursorDto = new ItemCursorDto();
+        itemCursorDto.setLastId(lastId);
+        itemCursorDto.setItemSearchDto(itemSearchDto);
+        return itemCursorDto;
+    }
+
+    //검색 조건을 함께 담은 불투명 커서 문자열 생성
+    public String encode(){
+        String searchSellStatus = itemSearchDto.getSearchSellStatus() == null
+                ? "" : itemSearchDto.getSearchSellStatus().name();
+        String raw = String.join(SEPARATOR,
+                VERSION,
+                lastId == null ? "" : lastId.toString(),
+                nullToEmpty(itemSearchDto.getSearchDateType()),
+                searchSellStatus,
+                nullToEmpty(itemSearchDto.getSearchBy()),
+                nullToEmpty(itemSearchDto.getSearchQuery()));
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ItemCursorDto decode(String cursor){
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e){
+            throw new IllegalArgumentException("잘못된 커서 입니다.", e);
+        }
+
+        String[] values = raw.split(SEPARATOR, -1);
+        if(values.length != 6 || !StringUtils.equals(VERSION, values[0])){
+            throw new IllegalArgumentException("잘못된 커서 입니다.");
+        }
+
+        ItemSearchDto itemSearchDto = new ItemSearchDto();
+        itemSearchDto.setSearchDateType(emptyToNull(values[2]));
+        itemSearchDto.setSearchSellStatus(StringUtils.isEmpty(values[3])
+                ? null : ItemSellStatus.valueOf(values[3]));
+        itemSearchDto.setSearchBy(emptyToNull(values[4]));
+        itemSearchDto.setSearchQuery(values[5]);
+
+        Long lastId = StringUtils.isEmpty(values[1]) ? null : Long.valueOf(values[1]);
+        return of(lastId, itemSearchDto);
+    }
+
+    private static String nullToEmpty(String value){
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value){
+        return StringUtils.isEmpty(value) ? null : value;
+    }
+
+}
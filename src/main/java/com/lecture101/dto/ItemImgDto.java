@@ -16,6 +16,8 @@ public class ItemImgDto {
 
     private String imgUrl;
 
+    private String detailImgUrl;
+
     private String repImgYn;
 
     private static ModelMapper modelMapper = new ModelMapper();
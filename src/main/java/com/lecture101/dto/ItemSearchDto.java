@@ -4,6 +4,9 @@ import com.lecture101.constant.ItemSellStatus;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.text.Normalizer;
+import java.util.Locale;
+
 @Getter @Setter
 public class ItemSearchDto {
 
@@ -15,4 +18,20 @@ public class ItemSearchDto {
 
     private String searchQuery = "";
 
+    //캐시 키로 사용할 정규화된 검색 조건 (null 과 빈 값, "all" 기간을 같은 조건으로 본다)
+    public String toCacheKey(){
+        String dateType = searchDateType == null ? "all" : searchDateType;
+        String sellStatus = searchSellStatus == null ? "" : searchSellStatus.name();
+        String by = searchBy == null ? "" : searchBy;
+        return dateType + "|" + sellStatus + "|" + by + "|" + normalizedSearchQuery();
+    }
+
+    //검색 색인과 같은 기준(NFC, 소문자)으로 정규화하고 앞뒤 공백을 제거한 검색어 (null 은 빈 값)
+    public String normalizedSearchQuery(){
+        if(searchQuery == null){
+            return "";
+        }
+        return Normalizer.normalize(searchQuery, Normalizer.Form.NFC).toLowerCase(Locale.ROOT).trim();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.lecture101.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class ItemSliceDto<T> {
+
+    private final List<T> content; //조회된 상품 목록
+
+    private final boolean hasNext; //다음 페이지 존재 여부
+
+    private final String nextCursor; //다음 페이지 조회용 커서
+
+    public ItemSliceDto(List<T> content, boolean hasNext, String nextCursor){
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+}
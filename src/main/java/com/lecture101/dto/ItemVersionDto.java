@@ -0,0 +1,13 @@
+package com.lecture101.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter @Setter
+public class ItemVersionDto {
+
+    private String tag; //화면 내용이 바뀌면 달라지는 값 (ETag 용)
+
+    private long lastModified; //마지막 수정 시각 (epoch millis)
+
+}
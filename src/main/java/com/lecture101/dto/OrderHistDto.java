@@ -5,6 +5,7 @@ import com.lecture101.entity.Order;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
@@ -18,6 +19,12 @@ public class OrderHistDto {
         this.orderStatus = order.getOrderStatus();
     }
 
+    public OrderHistDto(Long orderId, LocalDateTime orderDate, OrderStatus orderStatus){
+        this.orderId = orderId;
+        this.orderDate = orderDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+        this.orderStatus = orderStatus;
+    }
+
     private Long orderId; //주문아이디
     private String orderDate; //주문날짜
     private OrderStatus orderStatus; //주문 상태
@@ -0,0 +1,18 @@
+package com.lecture101.dto;
+
+import com.lecture101.constant.OrderIntakeStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter @Setter
+public class OrderIntakeDto {
+
+    private String token; //주문 접수 번호
+
+    private OrderIntakeStatus status;
+
+    private Long orderId;
+
+    private String message;
+
+}
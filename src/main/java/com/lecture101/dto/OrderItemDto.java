@@ -14,6 +14,16 @@ public class OrderItemDto {
         this.imgUrl = imgUrl;
     }
 
+    public OrderItemDto(Long orderId, String itemNm, int count, int orderPrice, String imgUrl){
+        this.orderId = orderId;
+        this.itemNm = itemNm;
+        this.count = count;
+        this.orderPrice = orderPrice;
+        this.imgUrl = imgUrl;
+    }
+
+    private Long orderId; //주문아이디
+
     private String itemNm; //상품명
     private int count; //주문 수량
 
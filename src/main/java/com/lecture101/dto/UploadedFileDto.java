@@ -0,0 +1,20 @@
+package com.lecture101.dto;
+
+import lombok.Getter;
+
+@Getter
+public class UploadedFileDto {
+
+    public UploadedFileDto(String fileName, boolean created, long lastModified){
+        this.fileName = fileName;
+        this.created = created;
+        this.lastModified = lastModified;
+    }
+
+    private String fileName; //저장된 파일명
+
+    private boolean created; //이번 업로드로 새로 쓴 파일인지 (false 면 같은 내용의 기존 파일)
+
+    private long lastModified; //새로 쓴 직후의 수정 시각 (epoch millis)
+
+}
@@ -7,11 +7,12 @@ import javax.persistence.*;
 
 @Entity
 @Getter @Setter
-@Table(name="cart_item")
+@Table(name="cart_item",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"cart_id", "item_id"}))
 public class CartItem extends BaseEntity {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_id")
     @Column(name = "cart_item_id")
     private Long id;
 
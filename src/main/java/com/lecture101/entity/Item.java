@@ -2,15 +2,19 @@ package com.lecture101.entity;
 
 import com.lecture101.constant.ItemSellStatus;
 import com.lecture101.dto.ItemFormDto;
-import com.lecture101.exception.OutOfStockException;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 
+//재고는 ItemStockService 의 조건부 UPDATE 로만 변경하므로, 변경된 컬럼만 UPDATE 해서 재고를 덮어쓰지 않도록 한다.
 @Entity
 @Table(name="item")
+//모든 엔티티가 generator = "pooled_id" 로 같이 쓰는 시퀀스. 이름이 전역이라 여기 한 곳에만 선언한다.
+@SequenceGenerator(name = "pooled_id", sequenceName = "hibernate_sequence", allocationSize = 50)
+@DynamicUpdate
 @Getter
 @Setter
 @ToString
@@ -18,7 +22,7 @@ public class Item extends BaseEntity {
 
     @Id
     @Column(name="item_id")
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_id")
     private Long id;       //상품 코드
 
     @Column(nullable = false, length = 50)
@@ -37,24 +41,25 @@ public class Item extends BaseEntity {
     @Enumerated(EnumType.STRING)
     private ItemSellStatus itemSellStatus; //상품 판매 상태
 
+    private String repImgUrl; //대표 이미지 조회 경로 (목록 조회용 비정규화 컬럼)
+
+    private String repCardImgUrl; //대표 이미지 목록 카드용 축소 이미지 경로
+
+    private String repThumbImgUrl; //대표 이미지 썸네일 경로
+
+    private Integer stockShardCount; //재고 분할 행 수 (비어 있거나 1 이하면 stockNumber 단일 행 사용)
+
     public void updateItem(ItemFormDto itemFormDto){
         this.itemNm = itemFormDto.getItemNm();
         this.price = itemFormDto.getPrice();
         this.stockNumber = itemFormDto.getStockNumber();
         this.itemDetail = itemFormDto.getItemDetail();
         this.itemSellStatus = itemFormDto.getItemSellStatus();
+        this.stockShardCount = itemFormDto.getStockShardCount();
     }
 
-    public void removeStock(int stockNumber){
-        int restStock = this.stockNumber - stockNumber;
-        if(restStock<0){
-            throw new OutOfStockException("상품의 재고가 부족 합니다. (현재 재고 수량: " + this.stockNumber + ")");
-        }
-        this.stockNumber = restStock;
-    }
-
-    public void addStock(int stockNumber){
-        this.stockNumber += stockNumber;
+    public boolean isStockSharded(){
+        return stockShardCount != null && stockShardCount > 1;
     }
 
 }
\ No newline at end of file
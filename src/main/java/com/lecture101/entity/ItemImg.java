@@ -6,13 +6,13 @@ import lombok.Setter;
 import javax.persistence.*;
 
 @Entity
-@Table(name="item_img")
+@Table(name="item_img", indexes = @Index(name = "idx_item_img_img_name", columnList = "imgName"))
 @Getter @Setter
 public class ItemImg extends BaseEntity{
 
     @Id
     @Column(name="item_img_id")
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_id")
     private Long id;
 
     private String imgName; //이미지 파일명
@@ -21,6 +21,12 @@ public class ItemImg extends BaseEntity{
 
     private String imgUrl; //이미지 조회 경로
 
+    private String cardImgUrl; //목록 카드용 축소 이미지 경로
+
+    private String detailImgUrl; //상세 화면용 축소 이미지 경로
+
+    private String thumbImgUrl; //장바구니, 구매이력 썸네일 경로
+
     private String repimgYn; //대표 이미지 여부
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -31,6 +37,10 @@ public class ItemImg extends BaseEntity{
         this.oriImgName = oriImgName;
         this.imgName = imgName;
         this.imgUrl = imgUrl;
+        //축소 이미지는 새 원본으로 다시 만들어질 때까지 원본을 사용
+        this.cardImgUrl = null;
+        this.detailImgUrl = null;
+        this.thumbImgUrl = null;
     }
 
 }
\ No newline at end of file
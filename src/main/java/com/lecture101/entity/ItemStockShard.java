@@ -0,0 +1,41 @@
+package com.lecture101.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+/**
+ * 재고 분할 행. 주문이 몰리는 상품의 재고를 여러 행으로 나눠 행 잠금 경합을 줄인다.
+ * 상품의 전체 재고는 분할 행 재고의 합이다.
+ */
+@Entity
+@Table(name="item_stock_shard",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"item_id", "shard_no"}))
+@Getter @Setter
+public class ItemStockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_id")
+    @Column(name = "item_stock_shard_id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", nullable = false)
+    private Item item;
+
+    @Column(name = "shard_no", nullable = false)
+    private int shardNo;
+
+    @Column(nullable = false)
+    private int stockNumber;
+
+    public static ItemStockShard createItemStockShard(Item item, int shardNo, int stockNumber){
+        ItemStockShard itemStockShard = new ItemStockShard();
+        itemStockShard.setItem(item);
+        itemStockShard.setShardNo(shardNo);
+        itemStockShard.setStockNumber(stockNumber);
+        return itemStockShard;
+    }
+
+}
@@ -17,7 +17,7 @@ public class Member extends BaseEntity {
 
     @Id
     @Column(name="member_id")
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_id")
     private Long id;
 
     private String name;
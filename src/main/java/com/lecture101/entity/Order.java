@@ -14,7 +14,8 @@ import java.util.List;
 @Getter @Setter
 public class Order extends BaseEntity {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_id")
     @Column(name = "order_id")
     private Long id;
 
@@ -57,11 +58,9 @@ public class Order extends BaseEntity {
         return totalPrice;
     }
 
+    //재고 복구는 OrderService 에서 ItemStockService 로 처리한다.
     public void cancelOrder() {
         this.orderStatus = OrderStatus.CANCEL;
-        for (OrderItem orderItem : orderItems) {
-            orderItem.cancel();
-        }
     }
 
 }
\ No newline at end of file
@@ -9,7 +9,8 @@ import javax.persistence.*;
 @Getter @Setter
 public class OrderItem extends BaseEntity {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_id")
     @Column(name = "order_item_id")
     private Long id;
 
@@ -30,7 +31,6 @@ public class OrderItem extends BaseEntity {
         orderItem.setItem(item);
         orderItem.setCount(count);
         orderItem.setOrderPrice(item.getPrice());
-        item.removeStock(count);
         return orderItem;
     }
 
@@ -38,8 +38,4 @@ public class OrderItem extends BaseEntity {
         return orderPrice*count;
     }
 
-    public void cancel() {
-        this.getItem().addStock(count);
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.lecture101.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class ItemChangedEvent {
+
+    private final Long itemId; //상품 코드
+
+    private final String itemNm; //상품명
+
+    private final String createdBy; //등록자
+
+    private final boolean created; //신규 등록 여부
+
+}
@@ -0,0 +1,12 @@
+package com.lecture101.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class ItemImgReleasedEvent {
+
+    private final String imgName; //더 이상 사용하지 않게 된 원본 이미지 파일명
+
+}
@@ -0,0 +1,14 @@
+package com.lecture101.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class ItemImgSavedEvent {
+
+    private final Long itemImgId;
+
+    private final String imgName; //저장된 원본 이미지 파일명
+
+}
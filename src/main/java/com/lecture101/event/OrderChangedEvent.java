@@ -0,0 +1,12 @@
+package com.lecture101.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class OrderChangedEvent {
+
+    private final Long memberId; //주문 회원 아이디
+
+}
@@ -0,0 +1,9 @@
+package com.lecture101.exception;
+
+public class OrderQueueFullException extends RuntimeException{
+
+    public OrderQueueFullException(String message) {
+        super(message);
+    }
+
+}
@@ -3,22 +3,38 @@ package com.lecture101.repository;
 import com.lecture101.dto.CartDetailDto;
 import com.lecture101.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
-public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+public interface CartItemRepository extends JpaRepository<CartItem, Long>, CartItemRepositoryCustom {
 
     CartItem findByCartIdAndItemId(Long cartId, Long itemId);
 
-    @Query("select new com.lecture101.dto.CartDetailDto(ci.id, i.itemNm, i.price, ci.count, im.imgUrl) " +
-            "from CartItem ci, ItemImg im " +
+    @Query("select new com.lecture101.dto.CartDetailDto(ci.id, i.itemNm, i.price, ci.count, coalesce(i.repThumbImgUrl, i.repImgUrl)) " +
+            "from CartItem ci " +
             "join ci.item i " +
-            "where ci.cart.id = :cartId " +
-            "and im.item.id = ci.item.id " +
-            "and im.repimgYn = 'Y' " +
+            "where ci.cart.member.id = :memberId " +
             "order by ci.regTime desc"
             )
-    List<CartDetailDto> findCartDetailDtoList(Long cartId);
+    List<CartDetailDto> findCartDetailDtoList(@Param("memberId") Long memberId);
 
-}
\ No newline at end of file
+    @Query("select ci.cart.member.id from CartItem ci where ci.id = :cartItemId")
+    Long findMemberIdById(@Param("cartItemId") Long cartItemId);
+
+    //주문할 장바구니 상품을 상품, 장바구니(소유 회원 아이디)와 함께 한 번에 조회
+    @Query("select ci from CartItem ci " +
+            "join fetch ci.item " +
+            "join fetch ci.cart " +
+            "where ci.id in :cartItemIds")
+    List<CartItem> findWithItemAndCart(@Param("cartItemIds") List<Long> cartItemIds);
+
+    @Transactional
+    @Modifying
+    @Query("delete from CartItem ci where ci.id in :cartItemIds")
+    int deleteByIdIn(@Param("cartItemIds") List<Long> cartItemIds);
+
+}
@@ -0,0 +1,7 @@
+package com.lecture101.repository;
+
+public interface CartItemRepositoryCustom {
+
+    Long upsertCartItem(Long cartId, Long itemId, int count);
+
+}
@@ -0,0 +1,42 @@
+package com.lecture101.repository;
+
+import com.lecture101.entity.CartItem;
+import org.springframework.data.domain.AuditorAware;
+
+import javax.persistence.EntityManager;
+
+public class CartItemRepositoryCustomImpl implements CartItemRepositoryCustom{
+
+    private EntityManager em;
+
+    private NativeInsertSupport nativeInsertSupport;
+
+    public CartItemRepositoryCustomImpl(EntityManager em, AuditorAware<String> auditorAware){
+        this.em = em;
+        this.nativeInsertSupport = new NativeInsertSupport(em, auditorAware);
+    }
+
+    /**
+     * 장바구니에 상품을 담는다. 이미 담긴 상품이면 (cart_id, item_id) 유니크 제약 충돌 시 수량만 더한다.
+     * 같은 상품을 동시에 담아도 장바구니 상품 행은 하나만 생긴다.
+     */
+    @Override
+    public Long upsertCartItem(Long cartId, Long itemId, int count) {
+        nativeInsertSupport.setAuditParameters(em.createNativeQuery(
+                "insert into cart_item (cart_item_id, cart_id, item_id, count, reg_time, update_time, created_by, modified_by) " +
+                "values (:cartItemId, :cartId, :itemId, :count, :now, :now, :auditor, :auditor) " +
+                "on duplicate key update count = count + :count, update_time = :now, modified_by = :auditor"))
+                .setParameter("cartItemId", nativeInsertSupport.nextId(CartItem.class))
+                .setParameter("cartId", cartId)
+                .setParameter("itemId", itemId)
+                .setParameter("count", count)
+                .executeUpdate();
+
+        return em.createQuery("select ci.id from CartItem ci " +
+                        "where ci.cart.id = :cartId and ci.item.id = :itemId", Long.class)
+                .setParameter("cartId", cartId)
+                .setParameter("itemId", itemId)
+                .getSingleResult();
+    }
+
+}
@@ -2,9 +2,14 @@ package com.lecture101.repository;
 
 import com.lecture101.entity.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface CartRepository extends JpaRepository<Cart, Long> {
+public interface CartRepository extends JpaRepository<Cart, Long>, CartRepositoryCustom {
 
     Cart findByMemberId(Long memberId);
 
+    @Query("select c.id from Cart c where c.member.id = :memberId")
+    Long findIdByMemberId(@Param("memberId") Long memberId);
+
 }
\ No newline at end of file
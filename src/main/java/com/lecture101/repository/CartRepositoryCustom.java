@@ -0,0 +1,7 @@
+package com.lecture101.repository;
+
+public interface CartRepositoryCustom {
+
+    Long createCartIfAbsent(Long memberId);
+
+}
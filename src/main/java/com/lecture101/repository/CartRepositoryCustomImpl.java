@@ -0,0 +1,38 @@
+package com.lecture101.repository;
+
+import com.lecture101.entity.Cart;
+import org.springframework.data.domain.AuditorAware;
+
+import javax.persistence.EntityManager;
+
+public class CartRepositoryCustomImpl implements CartRepositoryCustom{
+
+    private EntityManager em;
+
+    private NativeInsertSupport nativeInsertSupport;
+
+    public CartRepositoryCustomImpl(EntityManager em, AuditorAware<String> auditorAware){
+        this.em = em;
+        this.nativeInsertSupport = new NativeInsertSupport(em, auditorAware);
+    }
+
+    /**
+     * 회원의 장바구니가 없으면 만들고 장바구니 아이디를 돌려준다.
+     * 동시에 요청이 들어와도 member_id 유니크 제약으로 장바구니는 하나만 생긴다.
+     */
+    @Override
+    public Long createCartIfAbsent(Long memberId) {
+        nativeInsertSupport.setAuditParameters(em.createNativeQuery(
+                "insert into cart (cart_id, member_id, reg_time, update_time, created_by, modified_by) " +
+                "values (:cartId, :memberId, :now, :now, :auditor, :auditor) " +
+                "on duplicate key update cart_id = cart_id"))
+                .setParameter("cartId", nativeInsertSupport.nextId(Cart.class))
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+
+        return em.createQuery("select c.id from Cart c where c.member.id = :memberId", Long.class)
+                .setParameter("memberId", memberId)
+                .getSingleResult();
+    }
+
+}
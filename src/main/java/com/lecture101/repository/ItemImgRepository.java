@@ -2,7 +2,13 @@ package com.lecture101.repository;
 
 import com.lecture101.entity.ItemImg;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemImgRepository extends JpaRepository<ItemImg, Long> {
@@ -11,4 +17,28 @@ public interface ItemImgRepository extends JpaRepository<ItemImg, Long> {
 
     ItemImg findByItemIdAndRepimgYn(Long itemId, String repimgYn);
 
+    //같은 내용의 이미지 파일을 참조하는 상품 이미지 수
+    long countByImgName(String imgName);
+
+    //주어진 파일명 중 상품 이미지가 참조하는 파일명
+    @Query("select distinct ii.imgName from ItemImg ii where ii.imgName in :imgNames")
+    List<String> findReferencedImgNames(@Param("imgNames") Collection<String> imgNames);
+
+    @Transactional
+    @Modifying
+    //벌크 update 는 Auditing 이 적용되지 않으므로 수정 시각을 직접 변경 (상품 상세 조건부 GET 에 사용)
+    @Query("update ItemImg ii set ii.cardImgUrl = :cardImgUrl, ii.detailImgUrl = :detailImgUrl, " +
+            "ii.thumbImgUrl = :thumbImgUrl, ii.updateTime = :updateTime " +
+            "where ii.id = :itemImgId and ii.imgName = :imgName")
+    int updateVariantUrls(@Param("itemImgId") Long itemImgId, @Param("imgName") String imgName,
+                          @Param("cardImgUrl") String cardImgUrl, @Param("detailImgUrl") String detailImgUrl,
+                          @Param("thumbImgUrl") String thumbImgUrl,
+                          @Param("updateTime") LocalDateTime updateTime);
+
+    @Query("select ii.item.id from ItemImg ii where ii.id = :itemImgId")
+    Long findItemIdById(@Param("itemImgId") Long itemImgId);
+
+    @Query("select max(ii.updateTime) from ItemImg ii where ii.item.id = :itemId")
+    LocalDateTime findMaxUpdateTimeByItemId(@Param("itemId") Long itemId);
+
 }
\ No newline at end of file
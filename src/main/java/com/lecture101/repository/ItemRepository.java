@@ -2,9 +2,11 @@ package com.lecture101.repository;
 
 import com.lecture101.entity.Item;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -27,4 +29,57 @@ public interface ItemRepository extends JpaRepository<Item, Long>,
             "%:itemDetail% order by i.price desc", nativeQuery = true)
     List<Item> findByItemDetailByNative(@Param("itemDetail") String itemDetail);
 
+    //재고가 충분할 때만 차감하는 조건부 UPDATE. 변경된 행이 없으면 재고 부족
+    @Transactional
+    @Modifying
+    @Query("update Item i set i.stockNumber = i.stockNumber - :count " +
+            "where i.id = :itemId and i.stockNumber >= :count")
+    int decreaseStock(@Param("itemId") Long itemId, @Param("count") int count);
+
+    @Transactional
+    @Modifying
+    @Query("update Item i set i.stockNumber = i.stockNumber + :count " +
+            "where i.id = :itemId")
+    int increaseStock(@Param("itemId") Long itemId, @Param("count") int count);
+
+    @Query("select i.stockNumber from Item i where i.id = :itemId")
+    Integer findStockNumber(@Param("itemId") Long itemId);
+
+    @Query("select i.stockShardCount from Item i where i.id = :itemId")
+    Integer findStockShardCount(@Param("itemId") Long itemId);
+
+    //대표 이미지의 축소 이미지 경로를 상품에 반영. 그 사이 이미지가 교체됐으면 반영하지 않는다.
+    @Transactional
+    @Modifying
+    @Query("update Item i set i.repCardImgUrl = :cardImgUrl, i.repThumbImgUrl = :thumbImgUrl " +
+            "where i.id = (select ii.item.id from ItemImg ii " +
+            "where ii.id = :itemImgId and ii.imgName = :imgName and ii.repimgYn = 'Y')")
+    int updateRepVariantUrls(@Param("itemImgId") Long itemImgId, @Param("imgName") String imgName,
+                             @Param("cardImgUrl") String cardImgUrl, @Param("thumbImgUrl") String thumbImgUrl);
+
+    @Query("select max(i.id) from Item i")
+    Long findMaxId();
+
+    //대표 이미지 경로가 비어 있는 상품을 아이디 구간 단위로 채운다.
+    @Transactional
+    @Modifying
+    @Query(value="update item set rep_img_url = " +
+            "(select im.img_url from item_img im where im.item_id = item.item_id and im.repimg_yn = 'Y' limit 1) " +
+            "where item.rep_img_url is null and item.item_id > :fromId and item.item_id <= :toId", nativeQuery = true)
+    int backfillRepImgUrl(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    //상품의 대표 이미지 경로와 item_img 의 대표 이미지가 다른 상품 아이디
+    @Query(value="select i.item_id from item i " +
+            "left join item_img im on im.item_id = i.item_id and im.repimg_yn = 'Y' " +
+            "where coalesce(i.rep_img_url, '#') <> coalesce(im.img_url, '#') " +
+            "limit 500", nativeQuery = true)
+    List<Number> findRepImgUrlMismatchIds();
+
+    @Transactional
+    @Modifying
+    @Query(value="update item set rep_img_url = " +
+            "(select im.img_url from item_img im where im.item_id = item.item_id and im.repimg_yn = 'Y' limit 1) " +
+            "where item.item_id in (:itemIds)", nativeQuery = true)
+    int repairRepImgUrl(@Param("itemIds") List<Long> itemIds);
+
 }
\ No newline at end of file
@@ -1,15 +1,30 @@
 package com.lecture101.repository;
 
+import com.lecture101.constant.ItemField;
 import com.lecture101.dto.ItemSearchDto;
 import com.lecture101.dto.MainItemDto;
 import com.lecture101.entity.Item;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface ItemRepositoryCustom {
 
     Page<Item> getAdminItemPage(ItemSearchDto itemSearchDto, Pageable pageable);
 
     Page<MainItemDto> getMainItemPage(ItemSearchDto itemSearchDto, Pageable pageable);
 
+    List<Item> getAdminItemSlice(ItemSearchDto itemSearchDto, Long lastSeenId, int limit);
+
+    List<MainItemDto> getMainItemSlice(ItemSearchDto itemSearchDto, Long lastSeenId, int limit);
+
+    //상품 API 목록. fields 중 컬럼 필드만 조회하며, 각 행은 컬럼 필드 순서의 값 배열이다.
+    List<Object[]> getCatalogItemSlice(ItemSearchDto itemSearchDto, Long lastSeenId, int limit,
+                                       List<ItemField> fields);
+
+    //상품 API 아이디 목록 조회. 행 순서는 보장하지 않는다.
+    List<Object[]> getCatalogItems(Collection<Long> itemIds, List<ItemField> fields);
+
 }
\ No newline at end of file
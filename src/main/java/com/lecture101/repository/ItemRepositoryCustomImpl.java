@@ -1,30 +1,41 @@
 package com.lecture101.repository;
 
+import com.lecture101.constant.ItemField;
 import com.lecture101.constant.ItemSellStatus;
 import com.lecture101.dto.ItemSearchDto;
 import com.lecture101.dto.MainItemDto;
 import com.lecture101.dto.QMainItemDto;
 import com.lecture101.entity.Item;
 import com.lecture101.entity.QItem;
-import com.lecture101.entity.QItemImg;
-import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.thymeleaf.util.StringUtils;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class ItemRepositoryCustomImpl implements ItemRepositoryCustom{
 
     private JPAQueryFactory queryFactory;
 
-    public ItemRepositoryCustomImpl(EntityManager em){
+    private ItemSearchIndex itemSearchIndex;
+
+    private PageCountStrategy pageCountStrategy;
+
+    public ItemRepositoryCustomImpl(EntityManager em, ItemSearchIndex itemSearchIndex,
+                                    PageCountStrategy pageCountStrategy){
         this.queryFactory = new JPAQueryFactory(em);
+        this.itemSearchIndex = itemSearchIndex;
+        this.pageCountStrategy = pageCountStrategy;
     }
 
     private BooleanExpression searchSellStatusEq(ItemSellStatus searchSellStatus){
@@ -61,56 +72,186 @@ public class ItemRepositoryCustomImpl implements ItemRepositoryCustom{
         return null;
     }
 
+    private BooleanExpression searchByIndex(String searchBy, String searchQuery){
+        //앞뒤 공백은 검색어로 보지 않는다. (전체 건수 캐시 키와 같은 기준)
+        searchQuery = searchQuery == null ? null : searchQuery.trim();
+        if(StringUtils.isEmpty(searchQuery)){
+            return searchByLike(searchBy, searchQuery);
+        }
+
+        //색인에서 후보 아이디를 받지 못하면 like 검색으로 대체
+        List<Long> candidateIds = itemSearchIndex.search(searchBy, searchQuery);
+        if(candidateIds == null){
+            return searchByLike(searchBy, searchQuery);
+        }
+
+        return QItem.item.id.in(candidateIds);
+    }
+
+    private BooleanExpression idLt(Long lastSeenId){
+        return lastSeenId == null ? null : QItem.item.id.lt(lastSeenId);
+    }
+
     @Override
     public Page<Item> getAdminItemPage(ItemSearchDto itemSearchDto, Pageable pageable) {
+        QItem item = QItem.item;
+        Predicate[] conditions = {
+                regDtsAfter(itemSearchDto.getSearchDateType()),
+                searchSellStatusEq(itemSearchDto.getSearchSellStatus()),
+                searchByIndex(itemSearchDto.getSearchBy(), itemSearchDto.getSearchQuery())
+        };
 
-        QueryResults<Item> results = queryFactory
-                .selectFrom(QItem.item)
-                .where(regDtsAfter(itemSearchDto.getSearchDateType()),
-                        searchSellStatusEq(itemSearchDto.getSearchSellStatus()),
-                        searchByLike(itemSearchDto.getSearchBy(),
-                                itemSearchDto.getSearchQuery()))
-                .orderBy(QItem.item.id.desc())
+        List<Item> content = queryFactory
+                .selectFrom(item)
+                .where(conditions)
+                .orderBy(item.id.desc())
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
-                .fetchResults();
+                .fetch();
 
-        List<Item> content = results.getResults();
-        long total = results.getTotal();
-
-        return new PageImpl<>(content, pageable, total);
+        //마지막 페이지처럼 건수를 알 수 있는 경우에는 count 쿼리를 생략한다.
+        return PageableExecutionUtils.getPage(content, pageable, () -> pageCountStrategy.count(
+                PageCountStrategy.ITEM, "admin:" + itemSearchDto.toCacheKey(),
+                () -> queryFactory.select(item.count()).from(item).where(conditions).fetchOne(),
+                limit -> queryFactory.select(item.id).from(item).where(conditions)
+                        .limit(limit).fetch().size()));
     }
 
-    private BooleanExpression itemNmLike(String searchQuery){
-        return StringUtils.isEmpty(searchQuery) ? null : QItem.item.itemNm.like("%" + searchQuery + "%");
+    private BooleanExpression itemNmSearch(String searchQuery){
+        return StringUtils.isEmpty(searchQuery) ? null : searchByIndex(ItemSearchIndex.ITEM_NM, searchQuery);
     }
 
     @Override
     public Page<MainItemDto> getMainItemPage(ItemSearchDto itemSearchDto, Pageable pageable) {
         QItem item = QItem.item;
-        QItemImg itemImg = QItemImg.itemImg;
+        Predicate[] conditions = {
+                item.repImgUrl.isNotNull(),
+                itemNmSearch(itemSearchDto.getSearchQuery())
+        };
 
-        QueryResults<MainItemDto> results = queryFactory
+        List<MainItemDto> content = queryFactory
                 .select(
                         new QMainItemDto(
                                 item.id,
                                 item.itemNm,
                                 item.itemDetail,
-                                itemImg.imgUrl,
+                                item.repCardImgUrl.coalesce(item.repImgUrl),
                                 item.price)
                 )
-                .from(itemImg)
-                .join(itemImg.item, item)
-                .where(itemImg.repimgYn.eq("Y"))
-                .where(itemNmLike(itemSearchDto.getSearchQuery()))
+                .from(item)
+                .where(conditions)
                 .orderBy(item.id.desc())
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
-                .fetchResults();
+                .fetch();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> pageCountStrategy.count(
+                PageCountStrategy.ITEM, "main:" + itemSearchDto.normalizedSearchQuery(),
+                () -> queryFactory.select(item.count()).from(item).where(conditions).fetchOne(),
+                limit -> queryFactory.select(item.id).from(item).where(conditions)
+                        .limit(limit).fetch().size()));
+    }
+
+    @Override
+    public List<Item> getAdminItemSlice(ItemSearchDto itemSearchDto, Long lastSeenId, int limit) {
+        return queryFactory
+                .selectFrom(QItem.item)
+                .where(idLt(lastSeenId),
+                        regDtsAfter(itemSearchDto.getSearchDateType()),
+                        searchSellStatusEq(itemSearchDto.getSearchSellStatus()),
+                        searchByIndex(itemSearchDto.getSearchBy(),
+                                itemSearchDto.getSearchQuery()))
+                .orderBy(QItem.item.id.desc())
+                .limit(limit)
+                .fetch();
+    }
 
-        List<MainItemDto> content = results.getResults();
-        long total = results.getTotal();
-        return new PageImpl<>(content, pageable, total);
+    @Override
+    public List<MainItemDto> getMainItemSlice(ItemSearchDto itemSearchDto, Long lastSeenId, int limit) {
+        QItem item = QItem.item;
+
+        return queryFactory
+                .select(
+                        new QMainItemDto(
+                                item.id,
+                                item.itemNm,
+                                item.itemDetail,
+                                item.repCardImgUrl.coalesce(item.repImgUrl),
+                                item.price)
+                )
+                .from(item)
+                .where(item.repImgUrl.isNotNull())
+                .where(idLt(lastSeenId))
+                .where(itemNmSearch(itemSearchDto.getSearchQuery()))
+                .orderBy(item.id.desc())
+                .limit(limit)
+                .fetch();
+    }
+
+    @Override
+    public List<Object[]> getCatalogItemSlice(ItemSearchDto itemSearchDto, Long lastSeenId, int limit,
+                                              List<ItemField> fields) {
+        QItem item = QItem.item;
+
+        return toArrays(queryFactory
+                .select(columns(fields))
+                .from(item)
+                .where(item.repImgUrl.isNotNull())
+                .where(idLt(lastSeenId))
+                .where(itemNmSearch(itemSearchDto.getSearchQuery()))
+                .orderBy(item.id.desc())
+                .limit(limit)
+                .fetch());
+    }
+
+    @Override
+    public List<Object[]> getCatalogItems(Collection<Long> itemIds, List<ItemField> fields) {
+        QItem item = QItem.item;
+
+        return toArrays(queryFactory
+                .select(columns(fields))
+                .from(item)
+                .where(item.id.in(itemIds))
+                .fetch());
+    }
+
+    //요청한 필드의 컬럼만 select 한다.
+    private Expression<?>[] columns(List<ItemField> fields){
+        QItem item = QItem.item;
+        List<Expression<?>> columns = new ArrayList<>();
+        for (ItemField field : fields) {
+            switch (field){
+                case ID:
+                    columns.add(item.id);
+                    break;
+                case ITEM_NM:
+                    columns.add(item.itemNm);
+                    break;
+                case ITEM_DETAIL:
+                    columns.add(item.itemDetail);
+                    break;
+                case PRICE:
+                    columns.add(item.price);
+                    break;
+                case IMG_URL:
+                    columns.add(item.repCardImgUrl.coalesce(item.repImgUrl));
+                    break;
+                case ITEM_SELL_STATUS:
+                    columns.add(item.itemSellStatus);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return columns.toArray(new Expression<?>[0]);
+    }
+
+    private List<Object[]> toArrays(List<Tuple> rows){
+        List<Object[]> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            result.add(row.toArray());
+        }
+        return result;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,214 @@
+package com.lecture101.repository;
+
+import com.lecture101.entity.QItem;
+import com.lecture101.event.ItemChangedEvent;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.thymeleaf.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 상품명(itemNm), 등록자(createdBy) 검색용 메모리 n-gram 역색인.
+ * like '%검색어%' 풀스캔 대신 후보 상품 아이디를 돌려주고, 페이징은 Querydsl 쿼리가 담당한다.
+ * 한글은 NFC 정규화 후 음절 단위 bi-gram 으로 색인한다.
+ */
+@Component
+@Log
+public class ItemSearchIndex {
+
+    public static final String ITEM_NM = "itemNm";
+
+    public static final String CREATED_BY = "createdBy";
+
+    private static final int GRAM_SIZE = 2;
+
+    private static final int BUILD_CHUNK_SIZE = 5000;
+
+    private static final int ITEM_NM_FIELD = 0;
+
+    private static final int CREATED_BY_FIELD = 1;
+
+    private final JPAQueryFactory queryFactory;
+
+    //후보가 이보다 많으면 in 절이 오히려 느리므로 like 검색으로 돌린다.
+    @Value("${item.search.index.max-candidates:1000}")
+    private int maxCandidates;
+
+    private final Map<String, Set<Long>> itemNmPostings = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<Long>> createdByPostings = new ConcurrentHashMap<>();
+
+    //상품 아이디 -> {정규화된 상품명, 정규화된 등록자}
+    private final Map<Long, String[]> documents = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    public ItemSearchIndex(EntityManager em){
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build(){
+        QItem item = QItem.item;
+        long lastId = 0L;
+        int count = 0;
+
+        while(true){
+            List<Tuple> rows = queryFactory
+                    .select(item.id, item.itemNm, item.createdBy)
+                    .from(item)
+                    .where(item.id.gt(lastId))
+                    .orderBy(item.id.asc())
+                    .limit(BUILD_CHUNK_SIZE)
+                    .fetch();
+
+            for (Tuple row : rows) {
+                indexIfAbsent(row.get(item.id), row.get(item.itemNm), row.get(item.createdBy));
+                lastId = row.get(item.id);
+            }
+            count += rows.size();
+
+            if(rows.size() < BUILD_CHUNK_SIZE){
+                break;
+            }
+        }
+
+        ready = true;
+        log.info("상품 검색 색인 생성 완료 (상품 수: " + count + ")");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event){
+        index(event.getItemId(), event.getItemNm(), event.getCreatedBy());
+    }
+
+    /**
+     * 검색어에 해당하는 상품 아이디를 내림차순으로 돌려준다.
+     * 색인이 준비되지 않았거나 후보가 너무 많으면 null 을 돌려주며, 이 경우 호출자는 like 검색을 사용한다.
+     */
+    public List<Long> search(String searchBy, String searchQuery){
+        if(!ready || StringUtils.isEmpty(searchQuery)){
+            return null;
+        }
+
+        int field;
+        Map<String, Set<Long>> postings;
+        if(StringUtils.equals(ITEM_NM, searchBy)){
+            field = ITEM_NM_FIELD;
+            postings = itemNmPostings;
+        } else if(StringUtils.equals(CREATED_BY, searchBy)){
+            field = CREATED_BY_FIELD;
+            postings = createdByPostings;
+        } else {
+            return null;
+        }
+
+        String query = normalize(searchQuery);
+        Collection<Long> candidates = documents.keySet();
+
+        //가장 짧은 posting list 하나만 골라 원문 포함 여부로 검증한다.
+        if(query.length() >= GRAM_SIZE){
+            for (String gram : grams(query)) {
+                Set<Long> posting = postings.get(gram);
+                if(posting == null){
+                    return Collections.emptyList();
+                }
+                if(posting.size() < candidates.size()){
+                    candidates = posting;
+                }
+            }
+        }
+
+        List<Long> result = new ArrayList<>();
+        for (Long itemId : candidates) {
+            String[] document = documents.get(itemId);
+            if(document != null && document[field] != null && document[field].contains(query)){
+                result.add(itemId);
+                if(result.size() > maxCandidates){
+                    return null;
+                }
+            }
+        }
+
+        result.sort(Comparator.reverseOrder());
+        return result;
+    }
+
+    public synchronized void index(Long itemId, String itemNm, String createdBy){
+        remove(itemId);
+        add(itemId, itemNm, createdBy);
+    }
+
+    public synchronized void remove(Long itemId){
+        String[] document = documents.remove(itemId);
+        if(document == null){
+            return;
+        }
+        removePostings(itemNmPostings, itemId, document[ITEM_NM_FIELD]);
+        removePostings(createdByPostings, itemId, document[CREATED_BY_FIELD]);
+    }
+
+    //시작 시 색인 생성 중에 먼저 반영된 변경 이벤트를 덮어쓰지 않도록 한다.
+    private synchronized void indexIfAbsent(Long itemId, String itemNm, String createdBy){
+        if(!documents.containsKey(itemId)){
+            add(itemId, itemNm, createdBy);
+        }
+    }
+
+    private void add(Long itemId, String itemNm, String createdBy){
+        String[] document = {normalize(itemNm), normalize(createdBy)};
+        addPostings(itemNmPostings, itemId, document[ITEM_NM_FIELD]);
+        addPostings(createdByPostings, itemId, document[CREATED_BY_FIELD]);
+        documents.put(itemId, document);
+    }
+
+    private void addPostings(Map<String, Set<Long>> postings, Long itemId, String text){
+        if(text == null){
+            return;
+        }
+        for (String gram : grams(text)) {
+            postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(itemId);
+        }
+    }
+
+    private void removePostings(Map<String, Set<Long>> postings, Long itemId, String text){
+        if(text == null){
+            return;
+        }
+        for (String gram : grams(text)) {
+            Set<Long> posting = postings.get(gram);
+            if(posting != null){
+                posting.remove(itemId);
+                if(posting.isEmpty()){
+                    postings.remove(gram, posting);
+                }
+            }
+        }
+    }
+
+    private Set<String> grams(String text){
+        Set<String> grams = new HashSet<>();
+        for(int i=0;i+GRAM_SIZE<=text.length();i++){
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private String normalize(String text){
+        if(text == null){
+            return null;
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+
+}
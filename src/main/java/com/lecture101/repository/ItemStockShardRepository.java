@@ -0,0 +1,46 @@
+package com.lecture101.repository;
+
+import com.lecture101.entity.ItemStockShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface ItemStockShardRepository extends JpaRepository<ItemStockShard, Long> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "update item_stock_shard set stock_number = stock_number - :count " +
+            "where item_id = :itemId and shard_no = :shardNo and stock_number >= :count",
+            nativeQuery = true)
+    int decreaseStock(@Param("itemId") Long itemId, @Param("shardNo") int shardNo,
+                      @Param("count") int count);
+
+    @Transactional
+    @Modifying
+    @Query(value = "update item_stock_shard set stock_number = stock_number + :count " +
+            "where item_id = :itemId and shard_no = :shardNo",
+            nativeQuery = true)
+    int increaseStock(@Param("itemId") Long itemId, @Param("shardNo") int shardNo,
+                      @Param("count") int count);
+
+    @Query("select coalesce(sum(s.stockNumber), 0) from ItemStockShard s where s.item.id = :itemId")
+    long sumStockNumber(@Param("itemId") Long itemId);
+
+    /**
+     * 한 분할 행으로 부족할 때만 사용. 교착 상태를 피하려고 항상 분할 번호 순서로 잠근다.
+     * 영속성 컨텍스트의 엔티티는 앞선 update 문을 반영하지 않으므로 엔티티가 아닌 {분할 번호, 재고} 값으로 읽는다.
+     */
+    @Query(value = "select shard_no, stock_number from item_stock_shard where item_id = :itemId " +
+            "order by shard_no asc for update", nativeQuery = true)
+    List<Object[]> findStockNumbersForUpdate(@Param("itemId") Long itemId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ItemStockShard s where s.item.id = :itemId")
+    int deleteByItemId(@Param("itemId") Long itemId);
+
+}
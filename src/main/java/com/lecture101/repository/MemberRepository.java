@@ -1,10 +1,26 @@
 package com.lecture101.repository;
 
 import com.lecture101.entity.Member;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface MemberRepository extends JpaRepository<Member, Long> {
 
     Member findByEmail(String email);
 
+    //회원 이메일 필터 생성용. 아이디 기준으로 끊어서 조회한다.
+    @Query("select m.id, m.email from Member m where m.id > :lastId order by m.id asc")
+    List<Object[]> findEmails(@Param("lastId") Long lastId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update Member m set m.password = :password where m.id = :memberId")
+    int updatePassword(@Param("memberId") Long memberId, @Param("password") String password);
+
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.lecture101.repository;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.data.domain.AuditorAware;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.time.LocalDateTime;
+
+/**
+ * 네이티브 insert 에서 엔티티 저장과 같은 아이디, 감사(audit) 컬럼 값을 채우기 위한 도우미.
+ */
+class NativeInsertSupport {
+
+    private final EntityManager em;
+
+    private final AuditorAware<String> auditorAware;
+
+    NativeInsertSupport(EntityManager em, AuditorAware<String> auditorAware){
+        this.em = em;
+        this.auditorAware = auditorAware;
+    }
+
+    //엔티티에 설정된 아이디 생성기(pooled 시퀀스)에서 다음 아이디를 받는다.
+    Long nextId(Class<?> entityClass){
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        return (Long) session.getFactory().getMetamodel().entityPersister(entityClass)
+                .getIdentifierGenerator().generate(session, null);
+    }
+
+    //reg_time, update_time, created_by, modified_by 파라미터를 채운다.
+    Query setAuditParameters(Query query){
+        String auditor = auditorAware.getCurrentAuditor().orElse("");
+        LocalDateTime now = LocalDateTime.now();
+        return query.setParameter("now", now)
+                .setParameter("auditor", auditor);
+    }
+
+}
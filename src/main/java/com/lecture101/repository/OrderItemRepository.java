@@ -1,8 +1,21 @@
 package com.lecture101.repository;
 
+import com.lecture101.dto.OrderItemDto;
 import com.lecture101.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
-}
\ No newline at end of file
+    @Query("select new com.lecture101.dto.OrderItemDto(oi.order.id, i.itemNm, oi.count, oi.orderPrice, coalesce(i.repThumbImgUrl, i.repImgUrl)) " +
+            "from OrderItem oi " +
+            "join oi.item i " +
+            "where oi.order.id in :orderIds " +
+            "order by oi.id"
+    )
+    List<OrderItemDto> findOrderItemDtos(@Param("orderIds") List<Long> orderIds);
+
+}
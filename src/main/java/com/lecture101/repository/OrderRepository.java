@@ -1,5 +1,6 @@
 package com.lecture101.repository;
 
+import com.lecture101.dto.OrderHistDto;
 import com.lecture101.entity.Order;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -11,13 +12,29 @@ import java.util.List;
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
     @Query("select o from Order o " +
-            "where o.member.email = :email " +
+            "where o.member.id = :memberId " +
             "order by o.orderDate desc"
     )
-    List<Order> findOrders(@Param("email") String email, Pageable pageable);
+    List<Order> findOrders(@Param("memberId") Long memberId, Pageable pageable);
+
+    @Query("select new com.lecture101.dto.OrderHistDto(o.id, o.orderDate, o.orderStatus) " +
+            "from Order o " +
+            "where o.member.id = :memberId " +
+            "order by o.orderDate desc"
+    )
+    List<OrderHistDto> findOrderHistDtos(@Param("memberId") Long memberId, Pageable pageable);
 
     @Query("select count(o) from Order o " +
-            "where o.member.email = :email"
+            "where o.member.id = :memberId"
     )
-    Long countOrder(@Param("email") String email);
-}
\ No newline at end of file
+    Long countOrder(@Param("memberId") Long memberId);
+
+    @Query("select o.id from Order o " +
+            "where o.member.id = :memberId"
+    )
+    List<Long> findOrderIds(@Param("memberId") Long memberId, Pageable pageable);
+
+    @Query("select o.member.id from Order o where o.id = :orderId")
+    Long findMemberIdById(@Param("orderId") Long orderId);
+
+}
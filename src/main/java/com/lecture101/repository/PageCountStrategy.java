@@ -0,0 +1,118 @@
+package com.lecture101.repository;
+
+import com.lecture101.constant.CountMode;
+import com.lecture101.event.ItemChangedEvent;
+import com.lecture101.event.OrderChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 쿼리의 전체 건수(count) 조회 전략.
+ * EXACT : 매번 count 쿼리 실행
+ * CACHED : 정규화된 검색 조건(또는 회원)별로 TTL 동안 캐시하고, 변경 이벤트 발생 시 무효화
+ * CAPPED : 최대 cap 건까지만 세고 그 이상은 cap 으로 본다. ("1000+")
+ */
+@Component
+public class PageCountStrategy {
+
+    public static final String ITEM = "item";
+
+    public static final String ORDER = "order";
+
+    @Value("${page.count.mode:EXACT}")
+    private CountMode mode;
+
+    @Value("${page.count.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${page.count.cap:1000}")
+    private int cap;
+
+    @Value("${page.count.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, CachedCount> cache = new ConcurrentHashMap<>();
+
+    //무효화가 일어날 때마다 증가. count 도중 무효화되면 그 결과는 캐시에 남기지 않는다.
+    private final AtomicLong invalidationVersion = new AtomicLong();
+
+    /**
+     * @param namespace   무효화 단위 (ITEM, ORDER)
+     * @param key         정규화된 검색 조건 또는 회원 식별값
+     * @param exactCount  정확한 count 쿼리
+     * @param cappedCount limit 건까지만 조회해서 조회된 건수를 돌려주는 쿼리
+     */
+    public long count(String namespace, String key, LongSupplier exactCount, IntUnaryOperator cappedCount){
+        if(mode == CountMode.CAPPED){
+            return Math.min(cappedCount.applyAsInt(cap + 1), cap);
+        } else if(mode == CountMode.CACHED){
+            return cachedCount(namespace + ":" + key, exactCount);
+        }
+        return exactCount.getAsLong();
+    }
+
+    public void evict(String namespace){
+        invalidationVersion.incrementAndGet();
+        cache.keySet().removeIf(key -> key.startsWith(namespace + ":"));
+    }
+
+    public void evict(String namespace, String key){
+        invalidationVersion.incrementAndGet();
+        cache.remove(namespace + ":" + key);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event){
+        evict(ITEM);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event){
+        evict(ORDER, String.valueOf(event.getMemberId()));
+    }
+
+    private long cachedCount(String cacheKey, LongSupplier exactCount){
+        long now = System.currentTimeMillis();
+        CachedCount cachedCount = cache.get(cacheKey);
+        if(cachedCount != null && cachedCount.expiresAt > now){
+            return cachedCount.total;
+        }
+
+        long version = invalidationVersion.get();
+        long total = exactCount.getAsLong();
+        if(cache.size() >= maxEntries){
+            cache.values().removeIf(entry -> entry.expiresAt <= now);
+            if(cache.size() >= maxEntries){
+                cache.clear();
+            }
+        }
+        CachedCount computed = new CachedCount(total, now + ttlSeconds * 1000);
+        cache.put(cacheKey, computed);
+        //넣기 전후로 무효화가 있었으면 이전 데이터로 센 값일 수 있으므로 되돌린다.
+        if(version != invalidationVersion.get()){
+            cache.remove(cacheKey, computed);
+        }
+        return total;
+    }
+
+    private static class CachedCount {
+
+        private final long total;
+
+        private final long expiresAt;
+
+        private CachedCount(long total, long expiresAt){
+            this.total = total;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
@@ -4,85 +4,61 @@ import com.lecture101.dto.CartDetailDto;
 import com.lecture101.dto.CartItemDto;
 import com.lecture101.dto.CartOrderDto;
 import com.lecture101.dto.OrderDto;
-import com.lecture101.entity.Cart;
 import com.lecture101.entity.CartItem;
-import com.lecture101.entity.Item;
-import com.lecture101.entity.Member;
 import com.lecture101.repository.CartItemRepository;
 import com.lecture101.repository.CartRepository;
-import com.lecture101.repository.ItemRepository;
-import com.lecture101.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.thymeleaf.util.StringUtils;
 
 import javax.persistence.EntityNotFoundException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class CartService {
 
-    private final ItemRepository itemRepository;
-    private final MemberRepository memberRepository;
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final OrderService orderService;
 
-    public Long addCart(CartItemDto cartItemDto, String email){
+    /**
+     * 장바구니 아이디를 한 번에 찾고, 장바구니 상품은 insert ... on duplicate key update 한 문장으로 담는다.
+     */
+    public Long addCart(CartItemDto cartItemDto, Long memberId){
 
-        Item item = itemRepository.findById(cartItemDto.getItemId())
-                .orElseThrow(EntityNotFoundException::new);
-        Member member = memberRepository.findByEmail(email);
-
-        Cart cart = cartRepository.findByMemberId(member.getId());
-        if(cart == null){
-            cart = Cart.createCart(member);
-            cartRepository.save(cart);
+        Long cartId = cartRepository.findIdByMemberId(memberId);
+        if(cartId == null){
+            cartId = cartRepository.createCartIfAbsent(memberId);
         }
 
-        CartItem savedCartItem = cartItemRepository.findByCartIdAndItemId(cart.getId(), item.getId());
-
-        if(savedCartItem != null){
-            savedCartItem.addCount(cartItemDto.getCount());
-            return savedCartItem.getId();
-        } else {
-            CartItem cartItem = CartItem.createCartItem(cart, item, cartItemDto.getCount());
-            cartItemRepository.save(cartItem);
-            return cartItem.getId();
+        try {
+            return cartItemRepository.upsertCartItem(cartId, cartItemDto.getItemId(), cartItemDto.getCount());
+        } catch (DataIntegrityViolationException e){
+            //존재하지 않는 상품 (item_id 외래 키 위반)
+            throw new EntityNotFoundException();
         }
     }
 
     @Transactional(readOnly = true)
-    public List<CartDetailDto> getCartList(String email){
-
-        List<CartDetailDto> cartDetailDtoList = new ArrayList<>();
-
-        Member member = memberRepository.findByEmail(email);
-        Cart cart = cartRepository.findByMemberId(member.getId());
-        if(cart == null){
-            return cartDetailDtoList;
-        }
-
-        cartDetailDtoList = cartItemRepository.findCartDetailDtoList(cart.getId());
-        return cartDetailDtoList;
+    public List<CartDetailDto> getCartList(Long memberId){
+        return cartItemRepository.findCartDetailDtoList(memberId);
     }
 
     @Transactional(readOnly = true)
-    public boolean validateCartItem(Long cartItemId, String email){
-        Member curMember = memberRepository.findByEmail(email);
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(EntityNotFoundException::new);
-        Member savedMember = cartItem.getCart().getMember();
-
-        if(!StringUtils.equals(curMember.getEmail(), savedMember.getEmail())){
-            return false;
+    public boolean validateCartItem(Long cartItemId, Long memberId){
+        Long savedMemberId = cartItemRepository.findMemberIdById(cartItemId);
+        if(savedMemberId == null){
+            throw new EntityNotFoundException();
         }
 
-        return true;
+        return savedMemberId.equals(memberId);
     }
 
     public void updateCartItemCount(Long cartItemId, int count){
@@ -98,13 +74,29 @@ public class CartService {
         cartItemRepository.delete(cartItem);
     }
 
-    public Long orderCartItem(List<CartOrderDto> cartOrderDtoList, String email){
-        List<OrderDto> orderDtoList = new ArrayList<>();
-
+    /**
+     * 선택한 장바구니 상품을 한 번에 조회해서 소유자를 확인하고, 주문 후 한 문장으로 삭제한다.
+     */
+    public Long orderCartItem(List<CartOrderDto> cartOrderDtoList, Long memberId){
+        List<Long> cartItemIds = new ArrayList<>();
         for (CartOrderDto cartOrderDto : cartOrderDtoList) {
-            CartItem cartItem = cartItemRepository
-                            .findById(cartOrderDto.getCartItemId())
-                            .orElseThrow(EntityNotFoundException::new);
+            cartItemIds.add(cartOrderDto.getCartItemId());
+        }
+
+        Map<Long, CartItem> cartItemMap = new HashMap<>();
+        for (CartItem cartItem : cartItemRepository.findWithItemAndCart(cartItemIds)) {
+            cartItemMap.put(cartItem.getId(), cartItem);
+        }
+
+        List<OrderDto> orderDtoList = new ArrayList<>();
+        for (Long cartItemId : cartItemIds) {
+            CartItem cartItem = cartItemMap.get(cartItemId);
+            if(cartItem == null){
+                throw new EntityNotFoundException();
+            }
+            if(!memberId.equals(cartItem.getCart().getMember().getId())){
+                throw new AccessDeniedException("주문 권한이 없습니다.");
+            }
 
             OrderDto orderDto = new OrderDto();
             orderDto.setItemId(cartItem.getItem().getId());
@@ -112,15 +104,10 @@ public class CartService {
             orderDtoList.add(orderDto);
         }
 
-        Long orderId = orderService.orders(orderDtoList, email);
-        for (CartOrderDto cartOrderDto : cartOrderDtoList) {
-            CartItem cartItem = cartItemRepository
-                            .findById(cartOrderDto.getCartItemId())
-                            .orElseThrow(EntityNotFoundException::new);
-            cartItemRepository.delete(cartItem);
-        }
+        Long orderId = orderService.orders(orderDtoList, memberId);
+        cartItemRepository.deleteByIdIn(cartItemIds);
 
         return orderId;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package com.lecture101.service;
+
+import com.lecture101.event.ItemChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 상품 목록에 보이는 정보가 바뀔 때마다 증가하는 버전.
+ * 메인 목록 조각 캐시 키와 조건부 GET(ETag/Last-Modified)에 사용한다.
+ * 재시작 후 같은 번호가 다시 쓰이지 않도록 시작 시각을 함께 붙인다.
+ * 새 버전으로 이전 목록이 캐시에서 나가지 않도록, 목록 캐시를 먼저 비운 뒤 버전을 올린다.
+ */
+@Component
+public class CatalogVersion {
+
+    private final long startedAt = System.currentTimeMillis();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile long lastModified = startedAt;
+
+    private final MainItemPageCache mainItemPageCache;
+
+    public CatalogVersion(MainItemPageCache mainItemPageCache){
+        this.mainItemPageCache = mainItemPageCache;
+    }
+
+    //목록 조회에 쓰이는 검색 색인, 전체 건수 캐시가 먼저 갱신된 뒤에 버전을 올린다.
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event){
+        mainItemPageCache.invalidate(event.getItemId(), event.getItemNm());
+        increment();
+    }
+
+    //상품 변경 이벤트 없이 목록 정보(대표 축소 이미지 등)가 바뀐 경우에 호출한다.
+    public void itemImagesChanged(Long itemId){
+        mainItemPageCache.invalidate(itemId, null);
+        increment();
+    }
+
+    private void increment(){
+        version.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+
+    public String getTag(){
+        return Long.toHexString(startedAt) + "-" + version.get();
+    }
+
+    public long getLastModified(){
+        return lastModified;
+    }
+
+}
@@ -1,35 +1,256 @@
 package com.lecture101.service;
 
+import com.lecture101.dto.UploadedFileDto;
 import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.FileOutputStream;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Log
 public class FileService {
 
-    public String uploadFile(String uploadPath, String originalFileName, byte[] fileData) throws Exception{
-        UUID uuid = UUID.randomUUID();
-        String extension = originalFileName.substring(originalFileName.lastIndexOf("."));
-        String savedFileName = uuid.toString() + extension;
-        String fileUploadFullUrl = uploadPath + "/" + savedFileName;
-        FileOutputStream fos = new FileOutputStream(fileUploadFullUrl);
-        fos.write(fileData);
-        fos.close();
-        return savedFileName;
-    }
-
-    public void deleteFile(String filePath) throws Exception{
-        File deleteFile = new File(filePath);
-        if(deleteFile.exists()) {
-            deleteFile.delete();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //디렉터리 하나에 파일이 몰리지 않도록 파일명 앞 네 글자로 두 단계 하위 디렉터리를 나눈다.
+    private static final int SHARD_NAME_LENGTH = 2;
+
+    private static final int SHARD_DEPTH = 2;
+
+    private static final String DELETE_PREFIX = "delete-";
+
+    private final ThreadPoolExecutor executor;
+
+    //deleteIf 에서 임시 파일명으로 옮긴 파일을 받아 삭제해도 되는지 확인한다.
+    @FunctionalInterface
+    public interface DeleteCheck {
+        boolean canDelete(Path movedFile) throws IOException;
+    }
+
+    public FileService(@Value("${file.upload.threads:4}") int threads,
+                       @Value("${file.upload.queue-capacity:100}") int queueCapacity){
+        //대기열이 가득 차거나 종료 중이면 요청 스레드에서 직접 저장한다.
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "file-upload");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, pool) -> runnable.run());
+    }
+
+    /**
+     * 업로드 파일을 내용의 SHA-256 해시로 이름 지어 ab/cd/파일명 위치에 저장하고 파일 정보를 돌려준다.
+     * 같은 내용의 파일이 이미 있으면 새로 쓰지 않고 기존 파일명을 돌려주므로, 파일명이 같으면 내용도 항상 같다.
+     * 해시는 임시 파일로 복사하면서 함께 계산하고, 고정 크기 버퍼만 사용한다.
+     */
+    public UploadedFileDto uploadFile(String uploadPath, String originalFileName, MultipartFile file) throws Exception{
+        String extension = originalFileName.substring(originalFileName.lastIndexOf(".")).toLowerCase(Locale.ROOT);
+
+        Path uploadDir = Paths.get(uploadPath);
+        Files.createDirectories(uploadDir);
+        Path tempFile = Files.createTempFile(uploadDir, "upload-", ".tmp");
+        try {
+            String savedFileName = copy(file, tempFile) + extension;
+            Path target = shardedPath(uploadDir, savedFileName);
+            Path existing = locate(uploadDir, savedFileName);
+            if(existing != null && touch(existing)){
+                Files.delete(tempFile);
+                return new UploadedFileDto(savedFileName, false, 0);
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            return new UploadedFileDto(savedFileName, true, Files.getLastModifiedTime(target).toMillis());
+        } catch (IOException | RuntimeException e){
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * 삭제 대기 중인 파일을 다시 쓰게 된 경우 정리 작업이 지우지 않도록 수정 시각을 갱신한다.
+     * 같은 밀리초에도 새로 쓴 업로드가 알아챌 수 있도록 이전 값보다 항상 크게 한다. 파일이 없어졌으면 false.
+     */
+    private boolean touch(Path file) throws IOException {
+        try {
+            long previous = Files.getLastModifiedTime(file).toMillis();
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Math.max(System.currentTimeMillis(), previous + 1)));
+            return true;
+        } catch (NoSuchFileException e){
+            return false;
+        }
+    }
+
+    /**
+     * uploadFile 로 새로 쓴 파일을 되돌린다. 기존 파일을 재사용한 경우는 지우지 않는다.
+     * 그 사이 같은 내용의 다른 업로드가 이 파일을 재사용했으면(수정 시각 변경) 남긴다.
+     */
+    public boolean deleteCreatedFile(String uploadPath, UploadedFileDto uploadedFile) throws IOException {
+        if(uploadedFile == null || !uploadedFile.isCreated()){
+            return false;
+        }
+        return deleteIf(uploadPath, uploadedFile.getFileName(),
+                movedFile -> Files.getLastModifiedTime(movedFile).toMillis() == uploadedFile.getLastModified());
+    }
+
+    /**
+     * 파일을 먼저 임시 파일명(delete-옮긴시각-*.tmp)으로 옮긴 뒤 check 로 다시 확인해서 삭제하거나 원래 위치로 되돌린다.
+     * 옮기기 전에 재사용한 업로드는 check 에서 알 수 있고(수정 시각, 참조), 옮긴 뒤의 업로드는 파일을 찾지 못해 새로 쓴다.
+     */
+    public boolean deleteIf(String uploadPath, String fileName, DeleteCheck check) throws IOException {
+        Path uploadDir = Paths.get(uploadPath);
+        Path file = locate(uploadDir, fileName);
+        if(file == null){
+            return false;
+        }
+
+        Path tempFile = uploadDir.resolve(DELETE_PREFIX + System.currentTimeMillis() + "-" + UUID.randomUUID() + ".tmp");
+        try {
+            Files.move(file, tempFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e){
+            return false;
+        }
+        boolean delete;
+        try {
+            delete = check.canDelete(tempFile);
+        } catch (IOException | RuntimeException e){
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+            throw e;
+        }
+        if(!delete){
+            //그 사이 새로 쓴 같은 내용의 파일이 있으면 덮어쓴다. 파일명이 같으면 내용도 같다.
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+            return false;
+        }
+        Files.delete(tempFile);
+        return true;
+    }
+
+    //deleteIf 가 확인 중인 임시 파일이면 옮긴 시각을, 아니면 -1 을 돌려준다.
+    public long deletingSince(String fileName){
+        if(!fileName.startsWith(DELETE_PREFIX)){
+            return -1;
+        }
+        int end = fileName.indexOf('-', DELETE_PREFIX.length());
+        try {
+            return Long.parseLong(fileName.substring(DELETE_PREFIX.length(), end));
+        } catch (RuntimeException e){
+            return -1;
+        }
+    }
+
+    //파일 저장 전용 스레드에서 uploadFile 을 실행한다. 여러 파일을 동시에 저장할 때 사용한다.
+    public CompletableFuture<UploadedFileDto> uploadFileAsync(String uploadPath, String originalFileName, MultipartFile file){
+        CompletableFuture<UploadedFileDto> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(uploadFile(uploadPath, originalFileName, file));
+            } catch (Exception e){
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    //분할 디렉터리와 이전 방식(업로드 경로 바로 아래)의 파일을 모두 삭제한다.
+    public void deleteFile(String uploadPath, String fileName) throws Exception{
+        Path uploadDir = Paths.get(uploadPath);
+        boolean deleted = Files.deleteIfExists(shardedPath(uploadDir, fileName));
+        deleted |= Files.deleteIfExists(uploadDir.resolve(fileName));
+        //이동 중이던 파일이 분할 디렉터리에 새로 생겼을 수 있다.
+        deleted |= Files.deleteIfExists(shardedPath(uploadDir, fileName));
+        if(deleted) {
             log.info("파일을 삭제하였습니다.");
         } else {
             log.info("파일이 존재하지 않습니다.");
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * 파일이 저장될 분할 디렉터리 경로. 예) abcd1234.jpg -> ab/cd/abcd1234.jpg
+     * 파일명이 짧거나 영문/숫자로 시작하지 않으면 업로드 경로 바로 아래에 둔다.
+     */
+    public Path shardedPath(Path uploadDir, String fileName){
+        int prefixLength = SHARD_NAME_LENGTH * SHARD_DEPTH;
+        if(fileName.length() <= prefixLength){
+            return uploadDir.resolve(fileName);
+        }
+        Path dir = uploadDir;
+        for(int i=0;i<prefixLength;i+=SHARD_NAME_LENGTH){
+            String shard = fileName.substring(i, i + SHARD_NAME_LENGTH).toLowerCase(Locale.ROOT);
+            if(!shard.chars().allMatch(Character::isLetterOrDigit)){
+                return uploadDir.resolve(fileName);
+            }
+            dir = dir.resolve(shard);
+        }
+        return dir.resolve(fileName);
+    }
+
+    /**
+     * 저장된 파일 경로를 찾는다. 분할 디렉터리를 먼저 보고, 없으면 이전 방식의 경로를 본다.
+     * 옮기는 중인 파일을 놓치지 않도록 두 곳에 모두 없으면 분할 디렉터리를 한 번 더 확인한다.
+     */
+    public Path locate(Path uploadDir, String fileName){
+        Path sharded = shardedPath(uploadDir, fileName);
+        if(Files.exists(sharded)){
+            return sharded;
+        }
+        Path flat = uploadDir.resolve(fileName);
+        if(Files.exists(flat)){
+            return flat;
+        }
+        return Files.exists(sharded) ? sharded : null;
+    }
+
+    @PreDestroy
+    public void stop(){
+        executor.shutdown();
+    }
+
+    //임시 파일로 복사하면서 SHA-256 을 계산해 16진수 문자열로 돌려준다.
+    private String copy(MultipartFile file, Path target) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        try (ReadableByteChannel in = Channels.newChannel(file.getInputStream());
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(in.read(buffer) != -1){
+                buffer.flip();
+                digest.update(buffer.duplicate());
+                while(buffer.hasRemaining()){
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hash.toString();
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.lecture101.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 자주 요청되는 이미지 파일을 메모리에 보관하는 캐시.
+ * 여러 번 요청된 작은 파일만 담고, 전체 크기(바이트)가 넘으면 가장 오래 사용되지 않은 파일부터 제거한다.
+ * 파일 크기나 수정 시각이 달라지면 보관하던 내용은 버린다.
+ * 모든 이미지 요청이 거치므로 조회와 요청 횟수 집계는 잠금 없이 하고, 제거할 때만 잠근다.
+ */
+@Component
+public class ImageHotSet {
+
+    //요청 횟수를 기억할 최대 파일 수 (넘으면 집계를 처음부터 다시 한다)
+    private static final int MAX_TRACKED_FILES = 10000;
+
+    @Value("${image.hot-set.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${image.hot-set.max-entry-bytes:1048576}")
+    private long maxEntryBytes;
+
+    @Value("${image.hot-set.admit-after:2}")
+    private int admitAfter;
+
+    private final Map<Path, CacheEntry> entries = new ConcurrentHashMap<>();
+
+    private final Map<Path, Integer> requestCounts = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private final Object evictionLock = new Object();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    private final Counter evictionCounter;
+
+    public ImageHotSet(MeterRegistry meterRegistry){
+        this.hitCounter = Counter.builder("image.hot-set.requests").tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("image.hot-set.requests").tag("result", "miss")
+                .register(meterRegistry);
+        this.evictionCounter = Counter.builder("image.hot-set.evictions").register(meterRegistry);
+        Gauge.builder("image.hot-set.size", entries, Map::size).register(meterRegistry);
+        Gauge.builder("image.hot-set.bytes", totalBytes, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * 보관 중인 파일 내용을 돌려준다.
+     * 없으면 요청 횟수를 세어 admitAfter 번째 요청부터 파일을 읽어 담고, 아직 담지 않을 파일이면 null 을 돌려준다.
+     */
+    public byte[] get(Path file, long size, long lastModified) throws IOException {
+        //담을 수 없는 큰 파일은 집계도 하지 않는다.
+        if(size > maxEntryBytes){
+            missCounter.increment();
+            return null;
+        }
+
+        CacheEntry entry = entries.get(file);
+        if(entry != null){
+            if(entry.bytes.length == size && entry.lastModified == lastModified){
+                entry.lastAccess = System.nanoTime();
+                hitCounter.increment();
+                return entry.bytes;
+            }
+            remove(file, entry);
+        }
+        missCounter.increment();
+
+        if(requestCounts.merge(file, 1, Integer::sum) < admitAfter){
+            if(requestCounts.size() > MAX_TRACKED_FILES){
+                requestCounts.clear();
+            }
+            return null;
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        //읽는 도중 파일이 바뀌었으면 담지 않는다.
+        if(bytes.length != size || Files.getLastModifiedTime(file).toMillis() != lastModified){
+            return null;
+        }
+        put(file, new CacheEntry(bytes, lastModified));
+        return bytes;
+    }
+
+    public void evict(Path file){
+        CacheEntry entry = entries.get(file);
+        if(entry != null){
+            remove(file, entry);
+        }
+        requestCounts.remove(file);
+    }
+
+    private void put(Path file, CacheEntry entry){
+        requestCounts.remove(file);
+        CacheEntry previous = entries.put(file, entry);
+        totalBytes.addAndGet(entry.bytes.length - (previous == null ? 0 : previous.bytes.length));
+        if(totalBytes.get() > maxBytes){
+            evictEldest(file);
+        }
+    }
+
+    private void remove(Path file, CacheEntry entry){
+        if(entries.remove(file, entry)){
+            totalBytes.addAndGet(-entry.bytes.length);
+        }
+    }
+
+    //가장 오래 사용되지 않은 항목부터 제거. 제거는 한 번에 한 스레드만 한다.
+    private void evictEldest(Path keep){
+        synchronized (evictionLock) {
+            if(totalBytes.get() <= maxBytes){
+                return;
+            }
+            List<Map.Entry<Path, CacheEntry>> eldest = new ArrayList<>(entries.entrySet());
+            eldest.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+            for (Map.Entry<Path, CacheEntry> candidate : eldest) {
+                if(totalBytes.get() <= maxBytes){
+                    break;
+                }
+                if(candidate.getKey().equals(keep)){
+                    continue;
+                }
+                remove(candidate.getKey(), candidate.getValue());
+                evictionCounter.increment();
+            }
+        }
+    }
+
+    private static class CacheEntry {
+
+        private final byte[] bytes;
+
+        private final long lastModified;
+
+        private volatile long lastAccess = System.nanoTime();
+
+        private CacheEntry(byte[] bytes, long lastModified){
+            this.bytes = bytes;
+            this.lastModified = lastModified;
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.lecture101.service;
+
+import com.lecture101.constant.ItemField;
+import com.lecture101.dto.CatalogItemDto;
+import com.lecture101.dto.ItemImgDto;
+import com.lecture101.dto.ItemSearchDto;
+import com.lecture101.entity.ItemImg;
+import com.lecture101.repository.ItemImgRepository;
+import com.lecture101.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 상품 JSON API 조회. 엔티티 대신 요청한 필드의 컬럼만 값 배열로 조회한다.
+ * 각 행의 값은 columnFields(fields) 순서이며, 첫 번째 값은 항상 상품 아이디다.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class ItemCatalogService {
+
+    public static final int MAX_SIZE = 100;
+
+    private final ItemRepository itemRepository;
+
+    private final ItemImgRepository itemImgRepository;
+
+    private final ItemStockService itemStockService;
+
+    public static List<ItemField> columnFields(List<ItemField> fields){
+        List<ItemField> columnFields = new ArrayList<>();
+        for (ItemField field : fields) {
+            if(field.isColumn()){
+                columnFields.add(field);
+            }
+        }
+        return columnFields;
+    }
+
+    //아이디 내림차순 목록. lastSeenId 보다 작은 아이디부터 size 건을 조회한다.
+    public List<Object[]> getItemSlice(String searchQuery, Long lastSeenId, int size, List<ItemField> fields){
+        ItemSearchDto itemSearchDto = new ItemSearchDto();
+        itemSearchDto.setSearchQuery(searchQuery);
+        return itemRepository.getCatalogItemSlice(itemSearchDto, lastSeenId,
+                Math.min(Math.max(size, 1), MAX_SIZE), columnFields(fields));
+    }
+
+    //요청한 아이디 순서대로 돌려주며, 없는 상품은 건너뛴다.
+    public List<Object[]> getItems(List<Long> itemIds, List<ItemField> fields){
+        if(itemIds.isEmpty()){
+            return Collections.emptyList();
+        }
+        if(itemIds.size() > MAX_SIZE){
+            throw new IllegalArgumentException("한 번에 조회할 수 있는 상품은 " + MAX_SIZE + "개 입니다.");
+        }
+
+        Map<Long, Object[]> rows = new HashMap<>();
+        for (Object[] row : itemRepository.getCatalogItems(itemIds, columnFields(fields))) {
+            rows.put((Long) row[0], row);
+        }
+
+        List<Object[]> result = new ArrayList<>(rows.size());
+        for (Long itemId : itemIds) {
+            Object[] row = rows.remove(itemId);
+            if(row != null){
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    //컬럼, 재고, 이미지를 한 트랜잭션에서 조회해 서로 다른 시점의 값이 섞이지 않게 한다.
+    public CatalogItemDto getItem(Long itemId, List<ItemField> fields){
+        List<Object[]> rows = itemRepository.getCatalogItems(Collections.singletonList(itemId),
+                columnFields(fields));
+        if(rows.isEmpty()){
+            throw new EntityNotFoundException();
+        }
+
+        CatalogItemDto catalogItemDto = new CatalogItemDto();
+        catalogItemDto.setRow(rows.get(0));
+        if(fields.contains(ItemField.STOCK_NUMBER)){
+            catalogItemDto.setStockNumber(itemStockService.getStockNumber(itemId));
+        }
+        if(fields.contains(ItemField.IMAGES)){
+            catalogItemDto.setItemImgDtoList(getItemImgs(itemId));
+        }
+        return catalogItemDto;
+    }
+
+    private List<ItemImgDto> getItemImgs(Long itemId){
+        List<ItemImgDto> itemImgDtoList = new ArrayList<>();
+        for (ItemImg itemImg : itemImgRepository.findByItemIdOrderByIdAsc(itemId)) {
+            itemImgDtoList.add(ItemImgDto.of(itemImg));
+        }
+        return itemImgDtoList;
+    }
+
+}
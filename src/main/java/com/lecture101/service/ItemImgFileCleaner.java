@@ -0,0 +1,107 @@
+package com.lecture101.service;
+
+import com.lecture101.event.ItemImgReleasedEvent;
+import com.lecture101.repository.ItemImgRepository;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 교체된 상품 이미지 파일을 트랜잭션 커밋 후 백그라운드에서 삭제한다.
+ * 롤백되면 삭제하지 않으며, 삭제 직전에 참조하는 상품 이미지가 없는지 다시 확인한다.
+ * 대기열이 가득 차거나 삭제에 실패한 파일은 ItemImgOrphanCollector 가 나중에 정리한다.
+ */
+@Service
+@Log
+public class ItemImgFileCleaner {
+
+    @Value("${itemImgLocation}")
+    private String itemImgLocation;
+
+    //업로드 후 이 시간이 지나지 않은 파일은 DB 반영 전일 수 있으므로 지우지 않는다.
+    @Value("${item.img.gc.grace-minutes:10}")
+    private long graceMinutes;
+
+    private final ItemImgRepository itemImgRepository;
+
+    private final FileService fileService;
+
+    private final ItemImgVariantService itemImgVariantService;
+
+    private final ThreadPoolExecutor executor;
+
+    public ItemImgFileCleaner(ItemImgRepository itemImgRepository, FileService fileService,
+                              ItemImgVariantService itemImgVariantService,
+                              @Value("${item.img.delete.queue-capacity:1000}") int queueCapacity){
+        this.itemImgRepository = itemImgRepository;
+        this.fileService = fileService;
+        this.itemImgVariantService = itemImgVariantService;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "item-img-delete");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, pool) -> log.warning("이미지 삭제 대기열이 가득 찼습니다. 정리 작업에서 삭제합니다."));
+    }
+
+    @TransactionalEventListener
+    public void onItemImgReleased(ItemImgReleasedEvent event){
+        executor.execute(() -> {
+            try {
+                deleteIfUnreferenced(event.getImgName());
+            } catch (Exception e){
+                log.warning("이미지 삭제 실패 (" + event.getImgName() + "): " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 참조하는 상품 이미지가 없고 최근에 다시 쓰이지 않은 원본 이미지와 축소 이미지를 삭제한다.
+     * 사용 중인 파일을 잠시라도 옮기지 않도록 먼저 확인하고, 임시 파일명으로 옮긴 뒤 한 번 더 확인한다.
+     */
+    public boolean deleteIfUnreferenced(String imgName) throws Exception {
+        Path file = fileService.locate(Paths.get(itemImgLocation), imgName);
+        if(file == null || !isUnreferenced(file, imgName)){
+            return false;
+        }
+        if(!fileService.deleteIf(itemImgLocation, imgName, movedFile -> isUnreferenced(movedFile, imgName))){
+            return false;
+        }
+        itemImgVariantService.deleteVariants(imgName);
+        return true;
+    }
+
+    public boolean isRecentlyModified(Path file) throws IOException {
+        try {
+            return isRecent(Files.getLastModifiedTime(file).toMillis());
+        } catch (NoSuchFileException e){
+            return false;
+        }
+    }
+
+    //유예 시간 안의 시각(epoch millis)인지
+    public boolean isRecent(long millis){
+        return millis > System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(graceMinutes);
+    }
+
+    private boolean isUnreferenced(Path file, String imgName) throws IOException {
+        return !isRecentlyModified(file) && itemImgRepository.countByImgName(imgName) == 0;
+    }
+
+    @PreDestroy
+    public void stop(){
+        executor.shutdown();
+    }
+
+}
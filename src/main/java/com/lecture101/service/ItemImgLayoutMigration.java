@@ -0,0 +1,122 @@
+package com.lecture101.service;
+
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 상품 이미지 경로 바로 아래에 저장된 이전 파일을 분할 디렉터리(ab/cd/파일명)로 옮긴다.
+ * 서비스 중에 실행해도 되도록 파일은 원자적으로 이동하고, 이미지 조회/삭제는 두 경로를 모두 확인한다.
+ * URL 과 DB 의 파일명은 바뀌지 않는다.
+ */
+@Component
+@Log
+public class ItemImgLayoutMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Value("${itemImgLocation}")
+    private String itemImgLocation;
+
+    @Value("${item.img.layout-migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${item.img.layout-migration.threads:4}")
+    private int threads;
+
+    private final FileService fileService;
+
+    public ItemImgLayoutMigration(FileService fileService){
+        this.fileService = fileService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start(){
+        if(!enabled){
+            return;
+        }
+        Thread thread = new Thread(this::migrate, "item-img-layout-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    //옮긴 파일 수를 돌려준다.
+    public int migrate(){
+        Path uploadDir = Paths.get(itemImgLocation);
+        if(!Files.isDirectory(uploadDir)){
+            return 0;
+        }
+
+        AtomicInteger moved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "item-img-layout-migration-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(uploadDir, Files::isRegularFile)) {
+            //목록 전체를 메모리에 올리지 않도록 일정 개수씩 나눠 병렬로 옮긴다.
+            List<Callable<Void>> batch = new ArrayList<>();
+            for (Path file : files) {
+                if(file.getFileName().toString().endsWith(".tmp")){
+                    continue;
+                }
+                batch.add(() -> {
+                    if(move(uploadDir, file)){
+                        moved.incrementAndGet();
+                    }
+                    return null;
+                });
+                if(batch.size() == BATCH_SIZE){
+                    executor.invokeAll(batch);
+                    batch.clear();
+                }
+            }
+            executor.invokeAll(batch);
+        } catch (IOException e){
+            log.warning("상품 이미지 디렉터리 이전 실패: " + e.getMessage());
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+
+        log.info("상품 이미지 디렉터리 이전 완료 (이동한 파일 수: " + moved.get() + ")");
+        return moved.get();
+    }
+
+    private boolean move(Path uploadDir, Path file){
+        Path target = fileService.shardedPath(uploadDir, file.getFileName().toString());
+        if(target.equals(file)){
+            return false;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            //같은 이름이 이미 있으면 내용이 같은 파일이므로 덮어써도 된다.
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (NoSuchFileException e){
+            //이동 전에 삭제된 파일
+            return false;
+        } catch (IOException e){
+            log.warning("상품 이미지 이동 실패 (" + file.getFileName() + "): " + e.getMessage());
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+package com.lecture101.service;
+
+import com.lecture101.repository.ItemImgRepository;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 상품 이미지 디렉터리에서 어떤 상품 이미지도 참조하지 않는 파일을 주기적으로 삭제한다.
+ * 디렉터리를 스트림으로 읽으면서 일정 개수씩 나눠 병렬로 item_img.img_name 과 비교하고,
+ * 삭제는 초당 최대 건수로 제한해서 서비스 중인 디스크 I/O 를 방해하지 않게 한다.
+ * 롤백된 업로드, 삭제 대기열에서 빠진 파일, 중단된 업로드의 임시 파일이 대상이다.
+ */
+@Component
+@Log
+public class ItemImgOrphanCollector {
+
+    private static final int CHUNK_SIZE = 500;
+
+    //분할 디렉터리(ab/cd) 아래의 파일까지 확인한다.
+    private static final int MAX_DEPTH = 3;
+
+    @Value("${itemImgLocation}")
+    private String itemImgLocation;
+
+    @Value("${item.img.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${item.img.gc.interval-minutes:60}")
+    private long intervalMinutes;
+
+    @Value("${item.img.gc.threads:2}")
+    private int threads;
+
+    @Value("${item.img.gc.max-deletes-per-second:50}")
+    private int maxDeletesPerSecond;
+
+    private final ItemImgRepository itemImgRepository;
+
+    private final FileService fileService;
+
+    private final ItemImgVariantService itemImgVariantService;
+
+    private final ItemImgFileCleaner itemImgFileCleaner;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "item-img-gc");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long nextDeleteAt = Long.MIN_VALUE;
+
+    public ItemImgOrphanCollector(ItemImgRepository itemImgRepository, FileService fileService,
+                                  ItemImgVariantService itemImgVariantService, ItemImgFileCleaner itemImgFileCleaner){
+        this.itemImgRepository = itemImgRepository;
+        this.fileService = fileService;
+        this.itemImgVariantService = itemImgVariantService;
+        this.itemImgFileCleaner = itemImgFileCleaner;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start(){
+        if(!enabled){
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                collect();
+            } catch (Exception e){
+                log.warning("이미지 정리 실패: " + e.getMessage());
+            }
+        }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    //삭제한 파일 수를 돌려준다.
+    public int collect() throws IOException, InterruptedException {
+        Path uploadDir = Paths.get(itemImgLocation);
+        if(!Files.isDirectory(uploadDir)){
+            return 0;
+        }
+
+        AtomicInteger deleted = new AtomicInteger();
+        int failed = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "item-img-gc-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Stream<Path> stream = Files.walk(uploadDir, MAX_DEPTH)) {
+            Iterator<Path> files = stream.filter(Files::isRegularFile).iterator();
+            List<Callable<Void>> chunks = new ArrayList<>();
+            List<Path> chunk = new ArrayList<>();
+            while(files.hasNext()){
+                chunk.add(files.next());
+                if(chunk.size() == CHUNK_SIZE || !files.hasNext()){
+                    List<Path> paths = chunk;
+                    chunks.add(() -> {
+                        deleted.addAndGet(collectChunk(uploadDir, paths));
+                        return null;
+                    });
+                    chunk = new ArrayList<>();
+                }
+                //읽어 둔 목록이 쌓이지 않도록 스레드 수만큼 모이면 처리한다.
+                if(chunks.size() == threads || !files.hasNext()){
+                    failed += await(executor.invokeAll(chunks));
+                    chunks.clear();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        log.info("이미지 정리 완료 (삭제한 파일 수: " + deleted.get() + ", 실패한 묶음 수: " + failed + ")");
+        return deleted.get();
+    }
+
+    //실패한 묶음은 로그만 남기고 다음 정리 때 다시 확인한다. 실패한 묶음 수를 돌려준다.
+    private int await(List<Future<Void>> futures) throws InterruptedException {
+        int failed = 0;
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e){
+                failed++;
+                log.warning("이미지 정리 실패: " + e.getCause());
+            }
+        }
+        return failed;
+    }
+
+    private int collectChunk(Path uploadDir, List<Path> paths) throws Exception {
+        List<String> imgNames = new ArrayList<>();
+        for (Path path : paths) {
+            String fileName = path.getFileName().toString();
+            if(!fileName.endsWith(".tmp") && itemImgVariantService.variantBaseName(fileName) == null){
+                imgNames.add(fileName);
+            }
+        }
+        Set<String> referenced = imgNames.isEmpty() ? new HashSet<>()
+                : new HashSet<>(itemImgRepository.findReferencedImgNames(imgNames));
+
+        int deleted = 0;
+        for (Path path : paths) {
+            String fileName = path.getFileName().toString();
+            //삭제 확인 중인 파일은 옮기면서 수정 시각이 바뀌지 않으므로 옮긴 시각으로 판단한다.
+            if(referenced.contains(fileName) || itemImgFileCleaner.isRecentlyModified(path)
+                    || itemImgFileCleaner.isRecent(fileService.deletingSince(fileName))){
+                continue;
+            }
+
+            String variantBaseName = itemImgVariantService.variantBaseName(fileName);
+            if(fileName.endsWith(".tmp")){
+                //중단된 업로드/축소 이미지 생성의 임시 파일
+                throttle();
+                if(Files.deleteIfExists(path)){
+                    deleted++;
+                }
+            } else if(variantBaseName != null){
+                //원본이 남아 있으면 원본을 정리할 때 함께 삭제된다.
+                //옮긴 뒤 원본을 다시 확인해서, 그 사이 같은 원본이 다시 올라왔으면 되돌린다.
+                if(!hasOriginal(uploadDir, variantBaseName)){
+                    throttle();
+                    if(fileService.deleteIf(itemImgLocation, fileName, movedFile -> !hasOriginal(uploadDir, variantBaseName))){
+                        deleted++;
+                    }
+                }
+            } else {
+                throttle();
+                if(itemImgFileCleaner.deleteIfUnreferenced(fileName)){
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    //원본과 축소 이미지는 파일명 앞부분이 같아 같은 분할 디렉터리에 있다. 이전 방식 경로도 함께 확인한다.
+    private boolean hasOriginal(Path uploadDir, String baseName) throws IOException {
+        Path shardDir = fileService.shardedPath(uploadDir, baseName).getParent();
+        for (Path dir : new Path[]{shardDir, uploadDir}) {
+            if(!Files.isDirectory(dir)){
+                continue;
+            }
+            try (DirectoryStream<Path> originals = Files.newDirectoryStream(dir, baseName + ".*")) {
+                if(originals.iterator().hasNext()){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    //모든 작업 스레드를 합쳐 초당 최대 삭제 건수를 넘지 않게 한다.
+    private synchronized void throttle() throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxDeletesPerSecond);
+        long now = System.nanoTime();
+        if(nextDeleteAt > now){
+            TimeUnit.NANOSECONDS.sleep(nextDeleteAt - now);
+        }
+        nextDeleteAt = Math.max(now, nextDeleteAt) + interval;
+    }
+
+    @PreDestroy
+    public void stop(){
+        scheduler.shutdownNow();
+    }
+
+}
@@ -1,19 +1,30 @@
 package com.lecture101.service;
 
+import com.lecture101.dto.UploadedFileDto;
 import com.lecture101.entity.ItemImg;
+import com.lecture101.event.ItemImgReleasedEvent;
+import com.lecture101.event.ItemImgSavedEvent;
 import com.lecture101.repository.ItemImgRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.thymeleaf.util.StringUtils;
 
 import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Log
 public class ItemImgService {
 
     @Value("${itemImgLocation}")
@@ -23,38 +34,101 @@ public class ItemImgService {
 
     private final FileService fileService;
 
-    public void saveItemImg(ItemImg itemImg, MultipartFile itemImgFile) throws Exception{
-        String oriImgName = itemImgFile.getOriginalFilename();
-        String imgName = "";
-        String imgUrl = "";
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 상품 이미지 파일을 파일 저장 전용 스레드에서 동시에 저장하고, 요청 순서대로 저장한 파일 정보를 돌려준다.
+     * 비어 있는 파일은 null 이다. 하나라도 실패하면 이번에 새로 쓴 파일을 정리하고 예외를 던진다.
+     * 트랜잭션 밖에서 호출해서 파일을 쓰는 동안 DB 커넥션을 잡지 않는다.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<UploadedFileDto> uploadItemImgFiles(List<MultipartFile> itemImgFileList) throws Exception{
+        List<CompletableFuture<UploadedFileDto>> futures = new ArrayList<>();
+        for (MultipartFile itemImgFile : itemImgFileList) {
+            String oriImgName = itemImgFile.getOriginalFilename();
+            if(StringUtils.isEmpty(oriImgName) || itemImgFile.isEmpty()){
+                futures.add(CompletableFuture.completedFuture(null));
+            } else {
+                futures.add(fileService.uploadFileAsync(itemImgLocation, oriImgName, itemImgFile));
+            }
+        }
+
+        List<UploadedFileDto> uploadedFiles = new ArrayList<>();
+        Exception failure = null;
+        for (CompletableFuture<UploadedFileDto> future : futures) {
+            try {
+                uploadedFiles.add(future.get());
+            } catch (ExecutionException e){
+                uploadedFiles.add(null);
+                failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        if(failure != null){
+            deleteCreatedFiles(uploadedFiles);
+            throw failure;
+        }
+        return uploadedFiles;
+    }
 
-        //파일 업로드
-        if(!StringUtils.isEmpty(oriImgName)){
-            imgName = fileService.uploadFile(itemImgLocation, oriImgName,
-                    itemImgFile.getBytes());
+    /**
+     * 상품 저장이 실패했을 때 이번 요청에서 새로 쓴 파일만 삭제한다.
+     * 같은 내용의 기존 파일이나, 그 사이 다른 요청이 재사용한 파일은 다른 상품 이미지가 참조할 수 있으므로 남긴다.
+     * 남은 파일 중 참조되지 않는 파일은 ItemImgOrphanCollector 가 유예 시간이 지난 뒤 정리한다.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void deleteCreatedFiles(List<UploadedFileDto> uploadedFiles){
+        for (UploadedFileDto uploadedFile : uploadedFiles) {
+            if(uploadedFile == null){
+                continue;
+            }
+            try {
+                fileService.deleteCreatedFile(itemImgLocation, uploadedFile);
+            } catch (Exception e){
+                log.warning("업로드 파일 정리 실패 (" + uploadedFile.getFileName() + "): " + e.getMessage());
+            }
+        }
+    }
+
+    //uploadItemImgFiles 로 저장한 파일 정보로 상품 이미지를 저장한다.
+    public void saveItemImg(ItemImg itemImg, String oriImgName, String imgName){
+        String imgUrl = "";
+        if(StringUtils.isEmpty(imgName)){
+            imgName = "";
+        } else {
             imgUrl = "/images/item/" + imgName;
         }
 
         //상품 이미지 정보 저장
         itemImg.updateItemImg(oriImgName, imgName, imgUrl);
         itemImgRepository.save(itemImg);
+        updateRepImgUrl(itemImg);
+        eventPublisher.publishEvent(new ItemImgSavedEvent(itemImg.getId(), imgName));
     }
 
-    public void updateItemImg(Long itemImgId, MultipartFile itemImgFile) throws Exception{
-        if(!itemImgFile.isEmpty()){
-            ItemImg savedItemImg = itemImgRepository.findById(itemImgId)
-                    .orElseThrow(EntityNotFoundException::new);
+    //uploadItemImgFiles 로 저장한 파일로 상품 이미지를 교체한다.
+    public void updateItemImg(Long itemImgId, String oriImgName, String imgName){
+        ItemImg savedItemImg = itemImgRepository.findById(itemImgId)
+                .orElseThrow(EntityNotFoundException::new);
+        String oldImgName = savedItemImg.getImgName();
 
-            //기존 이미지 파일 삭제
-            if(!StringUtils.isEmpty(savedItemImg.getImgName())) {
-                fileService.deleteFile(itemImgLocation+"/"+
-                        savedItemImg.getImgName());
-            }
+        String imgUrl = "/images/item/" + imgName;
+        savedItemImg.updateItemImg(oriImgName, imgName, imgUrl);
+        updateRepImgUrl(savedItemImg);
 
-            String oriImgName = itemImgFile.getOriginalFilename();
-            String imgName = fileService.uploadFile(itemImgLocation, oriImgName, itemImgFile.getBytes());
-            String imgUrl = "/images/item/" + imgName;
-            savedItemImg.updateItemImg(oriImgName, imgName, imgUrl);
+        //기존 이미지 파일은 커밋 후 참조하는 상품 이미지가 없을 때 삭제
+        if(!StringUtils.isEmpty(oldImgName) && !oldImgName.equals(imgName)) {
+            eventPublisher.publishEvent(new ItemImgReleasedEvent(oldImgName));
+        }
+        eventPublisher.publishEvent(new ItemImgSavedEvent(savedItemImg.getId(), imgName));
+    }
+
+    //대표 이미지가 바뀌면 상품에 비정규화된 대표 이미지 경로도 함께 변경
+    private void updateRepImgUrl(ItemImg itemImg){
+        if(StringUtils.equals("Y", itemImg.getRepimgYn())){
+            itemImg.getItem().setRepImgUrl(itemImg.getImgUrl());
+            itemImg.getItem().setRepCardImgUrl(null);
+            itemImg.getItem().setRepThumbImgUrl(null);
         }
     }
 
@@ -0,0 +1,234 @@
+package com.lecture101.service;
+
+import com.lecture101.event.ItemImgSavedEvent;
+import com.lecture101.repository.ItemImgRepository;
+import com.lecture101.repository.ItemRepository;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.thymeleaf.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 상품 이미지 저장 후 목록 카드, 상세, 썸네일(장바구니/구매이력)용 축소 이미지를 백그라운드에서 만든다.
+ * 축소 이미지가 준비되기 전이나 만들지 못한 경우 화면은 원본 이미지를 사용한다.
+ */
+@Service
+@Log
+public class ItemImgVariantService {
+
+    private enum Variant {
+        CARD(480), DETAIL(800), THUMB(200);
+
+        private final int width;
+
+        Variant(int width){
+            this.width = width;
+        }
+    }
+
+    private static final String[] FORMATS = {"jpg", "png"};
+
+    private static final Pattern VARIANT_NAME = Pattern.compile("(.+)_(card|detail|thumb)\\.(jpg|png)");
+
+    @Value("${itemImgLocation}")
+    private String itemImgLocation;
+
+    private final ItemImgRepository itemImgRepository;
+
+    private final ItemRepository itemRepository;
+
+    private final FileService fileService;
+
+    private final CatalogVersion catalogVersion;
+
+    private final ThreadPoolExecutor executor;
+
+    public ItemImgVariantService(ItemImgRepository itemImgRepository, ItemRepository itemRepository,
+                                 FileService fileService, CatalogVersion catalogVersion,
+                                 @Value("${item.img.variant.threads:2}") int threads,
+                                 @Value("${item.img.variant.queue-capacity:1000}") int queueCapacity){
+        this.itemImgRepository = itemImgRepository;
+        this.itemRepository = itemRepository;
+        this.fileService = fileService;
+        this.catalogVersion = catalogVersion;
+        //대기열이 가득 차면 축소 이미지 생성을 건너뛴다. 화면은 원본으로 표시된다.
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "item-img-variant");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, pool) -> log.warning("축소 이미지 생성 대기열이 가득 찼습니다."));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemImgSaved(ItemImgSavedEvent event){
+        if(StringUtils.isEmpty(event.getImgName())){
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                generate(event.getItemImgId(), event.getImgName());
+            } catch (Exception e){
+                log.warning("축소 이미지 생성 실패 (" + event.getImgName() + "): " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 원본 이미지를 삭제할 때 함께 만든 축소 이미지도 삭제한다.
+     * 그 사이 같은 원본이 다시 올라와 축소 이미지를 재사용할 수 있으므로, 옮긴 뒤 원본과 참조가 없는지 다시 확인한다.
+     */
+    public void deleteVariants(String imgName) throws Exception {
+        if(StringUtils.isEmpty(imgName)){
+            return;
+        }
+        Path uploadDir = Paths.get(itemImgLocation);
+        for (Variant variant : Variant.values()) {
+            for (String format : FORMATS) {
+                String variantName = variantName(imgName, variant, format);
+                if(fileService.locate(uploadDir, variantName) != null){
+                    fileService.deleteIf(itemImgLocation, variantName,
+                            movedFile -> fileService.locate(uploadDir, imgName) == null
+                                    && itemImgRepository.countByImgName(imgName) == 0);
+                }
+            }
+        }
+    }
+
+    //축소 이미지 파일명이면 원본 파일명에서 확장자를 뺀 부분을, 아니면 null 을 돌려준다.
+    public String variantBaseName(String fileName){
+        Matcher matcher = VARIANT_NAME.matcher(fileName);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    @PreDestroy
+    public void stop(){
+        executor.shutdown();
+    }
+
+    private void generate(Long itemImgId, String imgName) throws IOException {
+        //원본 파일명이 내용 해시이므로, 같은 원본으로 만든 축소 이미지가 모두 있으면 그대로 사용한다.
+        String cardImgUrl = existingVariantUrl(imgName, Variant.CARD);
+        String detailImgUrl = existingVariantUrl(imgName, Variant.DETAIL);
+        String thumbImgUrl = existingVariantUrl(imgName, Variant.THUMB);
+
+        if(cardImgUrl == null || detailImgUrl == null || thumbImgUrl == null){
+            Path original = fileService.locate(Paths.get(itemImgLocation), imgName);
+            BufferedImage image = original == null ? null : read(original.toFile());
+            if(image == null){
+                //ImageIO 가 읽지 못하는 형식은 원본을 그대로 사용
+                return;
+            }
+
+            cardImgUrl = resize(image, imgName, Variant.CARD);
+            detailImgUrl = resize(image, imgName, Variant.DETAIL);
+            thumbImgUrl = resize(image, imgName, Variant.THUMB);
+        }
+
+        //생성 도중 이미지가 교체됐으면 파일명이 달라 갱신되지 않는다.
+        itemImgRepository.updateVariantUrls(itemImgId, imgName, cardImgUrl, detailImgUrl, thumbImgUrl,
+                LocalDateTime.now());
+        if(itemRepository.updateRepVariantUrls(itemImgId, imgName, cardImgUrl, thumbImgUrl) > 0){
+            catalogVersion.itemImagesChanged(itemImgRepository.findItemIdById(itemImgId));
+        }
+    }
+
+    //큰 원본은 가장 큰 축소 이미지의 2배 정도로만 샘플링해서 읽어 메모리를 아낀다.
+    private BufferedImage read(File file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            if(input == null){
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if(!readers.hasNext()){
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int subsampling = Math.max(1, reader.getWidth(0) / (Variant.DETAIL.width * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private String resize(BufferedImage image, String imgName, Variant variant) throws IOException {
+        if(image.getWidth() <= variant.width){
+            return null;
+        }
+
+        int height = Math.max(1, (int) Math.round((double) image.getHeight() * variant.width / image.getWidth()));
+        boolean alpha = image.getColorModel().hasAlpha();
+        BufferedImage resized = new BufferedImage(variant.width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, variant.width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        String format = alpha ? "png" : "jpg";
+        String variantName = variantName(imgName, variant, format);
+        Path uploadDir = Paths.get(itemImgLocation);
+        Path tempFile = Files.createTempFile(uploadDir, "variant-", ".tmp");
+        try {
+            ImageIO.write(resized, format, tempFile.toFile());
+            Path target = fileService.shardedPath(uploadDir, variantName);
+            Files.createDirectories(target.getParent());
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e){
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return "/images/item/" + variantName;
+    }
+
+    private String existingVariantUrl(String imgName, Variant variant){
+        for (String format : FORMATS) {
+            String variantName = variantName(imgName, variant, format);
+            if(fileService.locate(Paths.get(itemImgLocation), variantName) != null){
+                return "/images/item/" + variantName;
+            }
+        }
+        return null;
+    }
+
+    private String variantName(String imgName, Variant variant, String format){
+        int dot = imgName.lastIndexOf('.');
+        String baseName = dot < 0 ? imgName : imgName.substring(0, dot);
+        return baseName + "_" + variant.name().toLowerCase(Locale.ROOT) + "." + format;
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.lecture101.service;
+
+import com.lecture101.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 상품 테이블에 비정규화한 대표 이미지 경로(rep_img_url)의 백필 및 정합성 점검.
+ */
+@Service
+@RequiredArgsConstructor
+@Log
+public class ItemRepImgService {
+
+    private static final long BACKFILL_CHUNK_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+
+    @Value("${item.rep-img.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady(){
+        if(backfillOnStartup){
+            backfill();
+            checkConsistency(true);
+        }
+    }
+
+    //기존 상품의 대표 이미지 경로를 아이디 구간별로 나눠서 채운다. (구간마다 별도 트랜잭션)
+    public int backfill(){
+        Long maxId = itemRepository.findMaxId();
+        if(maxId == null){
+            return 0;
+        }
+
+        int updated = 0;
+        for(long fromId = 0; fromId < maxId; fromId += BACKFILL_CHUNK_SIZE){
+            updated += itemRepository.backfillRepImgUrl(fromId, fromId + BACKFILL_CHUNK_SIZE);
+        }
+
+        if(updated > 0){
+            log.info("대표 이미지 경로 백필 완료 (상품 수: " + updated + ")");
+        }
+        return updated;
+    }
+
+    //item_img 의 대표 이미지와 다른 상품을 찾고, repair 가 true 면 다시 맞춘다.
+    public List<Long> checkConsistency(boolean repair){
+        List<Long> mismatchIds = itemRepository.findRepImgUrlMismatchIds()
+                .stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+
+        if(!mismatchIds.isEmpty()){
+            log.warning("대표 이미지 경로 불일치 상품: " + mismatchIds);
+            if(repair){
+                itemRepository.repairRepImgUrl(mismatchIds);
+            }
+        }
+        return mismatchIds;
+    }
+
+}
@@ -1,23 +1,34 @@
 package com.lecture101.service;
 
+import com.lecture101.dto.ItemCursorDto;
 import com.lecture101.dto.ItemFormDto;
 import com.lecture101.dto.ItemImgDto;
 import com.lecture101.dto.ItemSearchDto;
+import com.lecture101.dto.ItemSliceDto;
+import com.lecture101.dto.ItemVersionDto;
 import com.lecture101.dto.MainItemDto;
+import com.lecture101.dto.UploadedFileDto;
 import com.lecture101.entity.Item;
 import com.lecture101.entity.ItemImg;
+import com.lecture101.event.ItemChangedEvent;
 import com.lecture101.repository.ItemImgRepository;
 import com.lecture101.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.persistence.EntityNotFoundException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 @Service
 @Transactional
@@ -30,26 +41,52 @@ public class ItemService {
 
     private final ItemImgRepository itemImgRepository;
 
-    public Long saveItem(ItemFormDto itemFormDto, List<MultipartFile> itemImgFileList) throws Exception{
+    private final ApplicationEventPublisher eventPublisher;
 
-        //상품 등록
-        Item item = itemFormDto.createItem();
-        itemRepository.save(item);
+    private final MainItemPageCache mainItemPageCache;
 
-        //이미지 등록
-        for(int i=0;i<itemImgFileList.size();i++){
-            ItemImg itemImg = new ItemImg();
-            itemImg.setItem(item);
+    private final ItemStockService itemStockService;
 
-            if(i == 0)
-                itemImg.setRepimgYn("Y");
-            else
-                itemImg.setRepimgYn("N");
+    private final TransactionTemplate transactionTemplate;
 
-            itemImgService.saveItemImg(itemImg, itemImgFileList.get(i));
+    /**
+     * 이미지 파일은 트랜잭션 밖에서 병렬로 먼저 저장하고, 상품/이미지 정보는 한 트랜잭션에서 저장한다.
+     * 저장에 실패하면 이번 요청에서 새로 쓴 파일만 정리한다.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Long saveItem(ItemFormDto itemFormDto, List<MultipartFile> itemImgFileList) throws Exception{
+        List<UploadedFileDto> uploadedFiles = itemImgService.uploadItemImgFiles(itemImgFileList);
+
+        try {
+            return transactionTemplate.execute(status -> {
+                //상품 등록
+                Item item = itemFormDto.createItem();
+                itemRepository.save(item);
+                itemStockService.configure(item, itemFormDto.getStockNumber());
+
+                //이미지 등록 (insert 는 커밋 시 JDBC batch 로 묶인다)
+                for(int i=0;i<itemImgFileList.size();i++){
+                    ItemImg itemImg = new ItemImg();
+                    itemImg.setItem(item);
+
+                    if(i == 0)
+                        itemImg.setRepimgYn("Y");
+                    else
+                        itemImg.setRepimgYn("N");
+
+                    UploadedFileDto uploadedFile = uploadedFiles.get(i);
+                    itemImgService.saveItemImg(itemImg, itemImgFileList.get(i).getOriginalFilename(),
+                            uploadedFile == null ? null : uploadedFile.getFileName());
+                }
+
+                eventPublisher.publishEvent(new ItemChangedEvent(item.getId(), item.getItemNm(),
+                        item.getCreatedBy(), true));
+                return item.getId();
+            });
+        } catch (RuntimeException e){
+            itemImgService.deleteCreatedFiles(uploadedFiles);
+            throw e;
         }
-
-        return item.getId();
     }
 
     @Transactional(readOnly = true)
@@ -64,24 +101,68 @@ public class ItemService {
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(EntityNotFoundException::new);
         ItemFormDto itemFormDto = ItemFormDto.of(item);
+        itemFormDto.setStockNumber(itemStockService.getStockNumber(item));
         itemFormDto.setItemImgDtoList(itemImgDtoList);
         return itemFormDto;
     }
 
-    public Long updateItem(ItemFormDto itemFormDto, List<MultipartFile> itemImgFileList) throws Exception{
-        //상품 수정
-        Item item = itemRepository.findById(itemFormDto.getId())
-                .orElseThrow(EntityNotFoundException::new);
-        item.updateItem(itemFormDto);
-        List<Long> itemImgIds = itemFormDto.getItemImgIds();
+    /**
+     * 상품 상세 화면의 변경 여부 확인용 버전. 이미지 목록과 재고를 모두 읽기 전에 확인한다.
+     * 상품/상품 이미지 수정 시각으로 만들고, 재고는 벌크 update 로 바뀌어 수정 시각에 남지 않으므로 따로 포함한다.
+     * 상품이 없으면 null 을 돌려준다.
+     */
+    @Transactional(readOnly = true)
+    public ItemVersionDto getItemDtlVersion(Long itemId){
+        Item item = itemRepository.findById(itemId).orElse(null);
+        if(item == null){
+            return null;
+        }
 
-        //이미지 등록
-        for(int i=0;i<itemImgFileList.size();i++){
-            itemImgService.updateItemImg(itemImgIds.get(i),
-                    itemImgFileList.get(i));
+        LocalDateTime updateTime = item.getUpdateTime();
+        LocalDateTime imgUpdateTime = itemImgRepository.findMaxUpdateTimeByItemId(itemId);
+        if(updateTime == null || (imgUpdateTime != null && imgUpdateTime.isAfter(updateTime))){
+            updateTime = imgUpdateTime;
         }
+        long lastModified = updateTime == null ? 0
+                : updateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        ItemVersionDto itemVersionDto = new ItemVersionDto();
+        itemVersionDto.setLastModified(lastModified);
+        itemVersionDto.setTag(itemId + "-" + Long.toHexString(lastModified) + "-"
+                + itemStockService.getStockNumber(item));
+        return itemVersionDto;
+    }
 
-        return item.getId();
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Long updateItem(ItemFormDto itemFormDto, List<MultipartFile> itemImgFileList) throws Exception{
+        //바뀐 이미지 파일만 트랜잭션 밖에서 병렬로 먼저 저장
+        List<UploadedFileDto> uploadedFiles = itemImgService.uploadItemImgFiles(itemImgFileList);
+
+        try {
+            return transactionTemplate.execute(status -> {
+                //상품 수정
+                Item item = itemRepository.findById(itemFormDto.getId())
+                        .orElseThrow(EntityNotFoundException::new);
+                item.updateItem(itemFormDto);
+                itemStockService.configure(item, itemFormDto.getStockNumber());
+                List<Long> itemImgIds = itemFormDto.getItemImgIds();
+
+                //이미지 등록
+                for(int i=0;i<itemImgFileList.size();i++){
+                    if(uploadedFiles.get(i) != null){
+                        itemImgService.updateItemImg(itemImgIds.get(i), itemImgFileList.get(i).getOriginalFilename(),
+                                uploadedFiles.get(i).getFileName());
+                    }
+                }
+
+                eventPublisher.publishEvent(new ItemChangedEvent(item.getId(), item.getItemNm(),
+                        item.getCreatedBy(), false));
+                return item.getId();
+            });
+        } catch (RuntimeException e){
+            itemImgService.deleteCreatedFiles(uploadedFiles);
+            throw e;
+        }
     }
 
     @Transactional(readOnly = true)
@@ -89,9 +170,42 @@ public class ItemService {
         return itemRepository.getAdminItemPage(itemSearchDto, pageable);
     }
 
-    @Transactional(readOnly = true)
+    //캐시 적중 시 DB 커넥션을 잡지 않도록 트랜잭션 없이 조회한다.
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Page<MainItemDto> getMainItemPage(ItemSearchDto itemSearchDto, Pageable pageable){
-        return itemRepository.getMainItemPage(itemSearchDto, pageable);
+        return mainItemPageCache.get(itemSearchDto, pageable,
+                () -> itemRepository.getMainItemPage(itemSearchDto, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public ItemSliceDto<Item> getAdminItemSlice(ItemCursorDto itemCursorDto, int size){
+        ItemSearchDto itemSearchDto = itemCursorDto.getItemSearchDto();
+        List<Item> items = itemRepository.getAdminItemSlice(itemSearchDto,
+                itemCursorDto.getLastId(), size + 1);
+        return toSlice(items, size, itemSearchDto, Item::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public ItemSliceDto<MainItemDto> getMainItemSlice(ItemCursorDto itemCursorDto, int size){
+        ItemSearchDto itemSearchDto = itemCursorDto.getItemSearchDto();
+        List<MainItemDto> items = itemRepository.getMainItemSlice(itemSearchDto,
+                itemCursorDto.getLastId(), size + 1);
+        return toSlice(items, size, itemSearchDto, MainItemDto::getId);
+    }
+
+    //size + 1 건을 조회해서 다음 페이지 존재 여부를 판단하고, 마지막 상품 아이디로 다음 커서를 만든다.
+    private <T> ItemSliceDto<T> toSlice(List<T> rows, int size, ItemSearchDto itemSearchDto,
+                                        Function<T, Long> idGetter){
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if(hasNext){
+            Long lastId = idGetter.apply(content.get(content.size() - 1));
+            nextCursor = ItemCursorDto.of(lastId, itemSearchDto).encode();
+        }
+
+        return new ItemSliceDto<>(content, hasNext, nextCursor);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+package com.lecture101.service;
+
+import com.lecture101.entity.Item;
+import com.lecture101.entity.ItemStockShard;
+import com.lecture101.exception.OutOfStockException;
+import com.lecture101.repository.ItemRepository;
+import com.lecture101.repository.ItemStockShardRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 상품 재고 변경. 엔티티를 읽고 다시 쓰는 대신 조건부 UPDATE 한 번으로 처리해서
+ * 동시 주문 시 재고가 유실되거나 초과 판매되지 않도록 한다.
+ * 재고 분할을 사용하는 상품은 임의의 분할 행부터 차감해서 주문이 한 행에 몰리지 않게 한다.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class ItemStockService {
+
+    private final ItemRepository itemRepository;
+
+    private final ItemStockShardRepository itemStockShardRepository;
+
+    public void removeStock(Item item, int count){
+        if(!tryRemoveStock(item, count)){
+            throw new OutOfStockException("상품의 재고가 부족 합니다. (현재 재고 수량: " + currentStockNumber(item) + ")");
+        }
+    }
+
+    /**
+     * 재고가 부족하면 예외 대신 false 를 돌려준다.
+     * 여러 주문을 한 트랜잭션으로 저장할 때 한 건의 재고 부족으로 트랜잭션 전체가 롤백되지 않도록 사용한다.
+     */
+    public boolean tryRemoveStock(Item item, int count){
+        if(!item.isStockSharded()){
+            return itemRepository.decreaseStock(item.getId(), count) == 1;
+        }
+
+        int shardCount = item.getStockShardCount();
+        int start = ThreadLocalRandom.current().nextInt(shardCount);
+        for(int i=0;i<shardCount;i++){
+            if(itemStockShardRepository.decreaseStock(item.getId(), (start + i) % shardCount, count) == 1){
+                return true;
+            }
+        }
+
+        //한 분할 행에 남은 재고로 부족하면 모든 분할 행을 잠그고 나눠서 차감한다.
+        //차감도 조건부 UPDATE 로 해서 엔티티 값으로 재고를 덮어쓰지 않는다.
+        List<Object[]> shards = itemStockShardRepository.findStockNumbersForUpdate(item.getId());
+        int total = 0;
+        for (Object[] shard : shards) {
+            total += ((Number) shard[1]).intValue();
+        }
+        if(total < count){
+            return false;
+        }
+
+        int rest = count;
+        for (Object[] shard : shards) {
+            int taken = Math.min(((Number) shard[1]).intValue(), rest);
+            if(taken > 0){
+                itemStockShardRepository.decreaseStock(item.getId(), ((Number) shard[0]).intValue(), taken);
+                rest -= taken;
+            }
+            if(rest == 0){
+                break;
+            }
+        }
+        return true;
+    }
+
+    public void addStock(Item item, int count){
+        if(!item.isStockSharded()){
+            itemRepository.increaseStock(item.getId(), count);
+            return;
+        }
+        int shardNo = ThreadLocalRandom.current().nextInt(item.getStockShardCount());
+        itemStockShardRepository.increaseStock(item.getId(), shardNo, count);
+    }
+
+    @Transactional(readOnly = true)
+    public int getStockNumber(Item item){
+        if(!item.isStockSharded()){
+            return item.getStockNumber();
+        }
+        return (int) itemStockShardRepository.sumStockNumber(item.getId());
+    }
+
+    //상품 엔티티(상세 설명 포함)를 읽지 않고 아이디로 현재 재고를 조회한다.
+    @Transactional(readOnly = true)
+    public int getStockNumber(Long itemId){
+        Integer stockShardCount = itemRepository.findStockShardCount(itemId);
+        if(stockShardCount != null && stockShardCount > 1){
+            return (int) itemStockShardRepository.sumStockNumber(itemId);
+        }
+        Integer stockNumber = itemRepository.findStockNumber(itemId);
+        return stockNumber == null ? 0 : stockNumber;
+    }
+
+    /**
+     * 상품 등록/수정 시 입력된 재고를 분할 행에 고르게 나눈다.
+     * 분할을 사용하는 동안 item.stock_number 는 0 으로 두고 분할 행의 합을 재고로 본다.
+     */
+    public void configure(Item item, int stockNumber){
+        itemStockShardRepository.deleteByItemId(item.getId());
+
+        if(!item.isStockSharded()){
+            item.setStockNumber(stockNumber);
+            return;
+        }
+
+        int shardCount = item.getStockShardCount();
+        List<ItemStockShard> shards = new ArrayList<>();
+        for(int i=0;i<shardCount;i++){
+            int shardStock = stockNumber / shardCount + (i < stockNumber % shardCount ? 1 : 0);
+            shards.add(ItemStockShard.createItemStockShard(item, i, shardStock));
+        }
+        itemStockShardRepository.saveAll(shards);
+        item.setStockNumber(0);
+    }
+
+    //엔티티에 읽어 둔 값이 아니라 DB 의 현재 재고를 조회한다.
+    private int currentStockNumber(Item item){
+        if(item.isStockSharded()){
+            return (int) itemStockShardRepository.sumStockNumber(item.getId());
+        }
+        Integer stockNumber = itemRepository.findStockNumber(item.getId());
+        return stockNumber == null ? 0 : stockNumber;
+    }
+
+}
@@ -0,0 +1,240 @@
+package com.lecture101.service;
+
+import com.lecture101.dto.ItemSearchDto;
+import com.lecture101.dto.MainItemDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.util.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 메인 페이지 상품 목록 결과 캐시.
+ * 검색어 + 페이지 단위로 보관하며, 크기(추정 바이트) 기준 LRU 로 제거한다.
+ * 만료된 항목은 한 요청만 다시 조회하고 나머지는 기존 값을 그대로 사용한다.
+ */
+@Component
+public class MainItemPageCache {
+
+    private static final long ENTRY_OVERHEAD = 128;
+
+    private static final long ITEM_OVERHEAD = 64;
+
+    @Value("${storefront.cache.max-bytes:16777216}")
+    private long maxBytes;
+
+    @Value("${storefront.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    //접근 순서 LinkedHashMap 으로 LRU 구현
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    //상품 아이디 -> 해당 상품이 포함된 캐시 키
+    private final Map<Long, Set<String>> keysByItemId = new HashMap<>();
+
+    private final Map<String, CompletableFuture<Page<MainItemDto>>> loading = new ConcurrentHashMap<>();
+
+    //무효화가 일어날 때마다 증가. 조회 도중 무효화된 결과는 캐시에 넣지 않는다.
+    private final AtomicLong invalidationVersion = new AtomicLong();
+
+    private long totalBytes = 0;
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    private final Counter evictionCounter;
+
+    private final Timer loadTimer;
+
+    public MainItemPageCache(MeterRegistry meterRegistry){
+        this.hitCounter = Counter.builder("storefront.cache.requests").tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("storefront.cache.requests").tag("result", "miss")
+                .register(meterRegistry);
+        this.evictionCounter = Counter.builder("storefront.cache.evictions").register(meterRegistry);
+        this.loadTimer = Timer.builder("storefront.cache.load").register(meterRegistry);
+        Gauge.builder("storefront.cache.size", this, cache -> cache.size()).register(meterRegistry);
+        Gauge.builder("storefront.cache.bytes", this, cache -> cache.bytes()).register(meterRegistry);
+        Gauge.builder("storefront.cache.hit.ratio", this, cache -> cache.hitRatio()).register(meterRegistry);
+    }
+
+    public Page<MainItemDto> get(ItemSearchDto itemSearchDto, Pageable pageable,
+                                 Supplier<Page<MainItemDto>> loader){
+        String key = cacheKey(itemSearchDto, pageable);
+        CacheEntry entry = lookup(key);
+
+        if(entry != null && !entry.isExpired()){
+            hitCounter.increment();
+            return entry.page;
+        }
+        missCounter.increment();
+
+        CompletableFuture<Page<MainItemDto>> future = new CompletableFuture<>();
+        CompletableFuture<Page<MainItemDto>> running = loading.putIfAbsent(key, future);
+        if(running != null){
+            //다른 요청이 다시 조회 중이면 만료된 값이라도 먼저 돌려준다.
+            return entry != null ? entry.page : running.join();
+        }
+
+        try {
+            long version = invalidationVersion.get();
+            Page<MainItemDto> page = loadTimer.record(loader);
+            put(key, page, version);
+            future.complete(page);
+            return page;
+        } catch (RuntimeException e){
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * 상품 등록/수정 후 해당 상품이 노출되던 목록과, 새로 노출될 검색어(itemNm 이 있을 때)의 목록만 무효화한다.
+     * 카탈로그 버전과 순서가 어긋나지 않도록 CatalogVersion 에서만 호출한다.
+     */
+    public synchronized void invalidate(Long itemId, String itemNm){
+        Set<String> queries = new HashSet<>();
+        for (String key : keysByItemId.getOrDefault(itemId, Collections.emptySet())) {
+            queries.add(queryOf(key));
+        }
+
+        for (String key : new ArrayList<>(entries.keySet())) {
+            String query = queryOf(key);
+            if(queries.contains(query) || (itemNm != null && matches(itemNm, query))){
+                remove(key);
+            }
+        }
+        invalidationVersion.incrementAndGet();
+        //무효화 전에 시작한 조회 결과를 이후 요청이 기다려 받지 않도록 한다.
+        loading.clear();
+    }
+
+    private synchronized CacheEntry lookup(String key){
+        return entries.get(key);
+    }
+
+    private synchronized void put(String key, Page<MainItemDto> page, long version){
+        if(version != invalidationVersion.get()){
+            return;
+        }
+
+        long bytes = estimateBytes(key, page);
+        if(bytes > maxBytes){
+            return;
+        }
+
+        remove(key);
+        entries.put(key, new CacheEntry(page, bytes, System.currentTimeMillis() + ttlSeconds * 1000));
+        totalBytes += bytes;
+        for (MainItemDto mainItemDto : page.getContent()) {
+            keysByItemId.computeIfAbsent(mainItemDto.getId(), id -> new HashSet<>()).add(key);
+        }
+
+        //가장 오래 사용되지 않은 항목부터 제거
+        Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+        while(totalBytes > maxBytes && iterator.hasNext()){
+            Map.Entry<String, CacheEntry> eldest = iterator.next();
+            if(eldest.getKey().equals(key)){
+                continue;
+            }
+            iterator.remove();
+            unlink(eldest.getKey(), eldest.getValue());
+            evictionCounter.increment();
+        }
+    }
+
+    private void remove(String key){
+        CacheEntry removed = entries.remove(key);
+        if(removed != null){
+            unlink(key, removed);
+        }
+    }
+
+    private void unlink(String key, CacheEntry entry){
+        totalBytes -= entry.bytes;
+        for (MainItemDto mainItemDto : entry.page.getContent()) {
+            Set<String> keys = keysByItemId.get(mainItemDto.getId());
+            if(keys != null){
+                keys.remove(key);
+                if(keys.isEmpty()){
+                    keysByItemId.remove(mainItemDto.getId());
+                }
+            }
+        }
+    }
+
+    private boolean matches(String itemNm, String query){
+        return StringUtils.isEmpty(query) || (itemNm != null
+                && itemNm.toLowerCase(Locale.ROOT).contains(query.toLowerCase(Locale.ROOT)));
+    }
+
+    private String cacheKey(ItemSearchDto itemSearchDto, Pageable pageable){
+        String query = itemSearchDto.getSearchQuery() == null ? "" : itemSearchDto.getSearchQuery();
+        return pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + query;
+    }
+
+    private String queryOf(String key){
+        return key.substring(key.indexOf(':', key.indexOf(':') + 1) + 1);
+    }
+
+    private long estimateBytes(String key, Page<MainItemDto> page){
+        long bytes = ENTRY_OVERHEAD + key.length() * 2L;
+        for (MainItemDto mainItemDto : page.getContent()) {
+            bytes += ITEM_OVERHEAD + 2L * (length(mainItemDto.getItemNm())
+                    + length(mainItemDto.getItemDetail()) + length(mainItemDto.getImgUrl()));
+        }
+        return bytes;
+    }
+
+    private int length(String value){
+        return value == null ? 0 : value.length();
+    }
+
+    private synchronized int size(){
+        return entries.size();
+    }
+
+    private synchronized long bytes(){
+        return totalBytes;
+    }
+
+    private double hitRatio(){
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private static class CacheEntry {
+
+        private final Page<MainItemDto> page;
+
+        private final long bytes;
+
+        private final long expiresAt;
+
+        private CacheEntry(Page<MainItemDto> page, long bytes, long expiresAt){
+            this.page = page;
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(){
+            return expiresAt <= System.currentTimeMillis();
+        }
+
+    }
+
+}
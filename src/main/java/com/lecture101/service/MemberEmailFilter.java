@@ -0,0 +1,168 @@
+package com.lecture101.service;
+
+import com.lecture101.repository.MemberRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 가입된 회원 이메일의 블룸 필터.
+ * 필터에 없다고 나오면 확실히 가입되지 않은 이메일이므로 회원가입 시 중복 조회를 생략한다.
+ * 있다고 나오면 오탐일 수 있으므로 DB 를 조회한다.
+ */
+@Component
+@Log
+public class MemberEmailFilter {
+
+    private static final int BUILD_CHUNK_SIZE = 5000;
+
+    private final MemberRepository memberRepository;
+
+    private final AtomicLongArray bits;
+
+    private final long bitSize;
+
+    private final int hashCount;
+
+    private final AtomicLong insertions = new AtomicLong();
+
+    private final Counter skippedCounter;
+
+    private final Counter duplicateCounter;
+
+    private final Counter falsePositiveCounter;
+
+    private volatile boolean ready = false;
+
+    public MemberEmailFilter(MemberRepository memberRepository, MeterRegistry meterRegistry,
+                             @Value("${member.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                             @Value("${member.email-filter.fpp:0.01}") double fpp){
+        this.memberRepository = memberRepository;
+
+        //m = -n ln p / (ln 2)^2, k = m / n ln 2
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+        this.bitSize = bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+
+        this.skippedCounter = Counter.builder("member.email.filter.checks").tag("result", "skipped")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("member.email.filter.checks").tag("result", "duplicate")
+                .register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("member.email.filter.checks").tag("result", "false_positive")
+                .register(meterRegistry);
+        Gauge.builder("member.email.filter.fpp", this, filter -> filter.expectedFpp()).register(meterRegistry);
+        Gauge.builder("member.email.filter.bytes", this, filter -> filter.bitSize / 8).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build(){
+        long lastId = 0L;
+        while(true){
+            List<Object[]> rows = memberRepository.findEmails(lastId, PageRequest.of(0, BUILD_CHUNK_SIZE));
+            for (Object[] row : rows) {
+                lastId = (Long) row[0];
+                put((String) row[1]);
+            }
+            if(rows.size() < BUILD_CHUNK_SIZE){
+                break;
+            }
+        }
+
+        ready = true;
+        log.info("회원 이메일 필터 생성 완료 (이메일 수: " + insertions.get() + ")");
+    }
+
+    /**
+     * 가입됐을 가능성이 있으면 true. 필터가 아직 준비되지 않았으면 항상 true 를 돌려준다.
+     */
+    public boolean mightContain(String email){
+        if(!ready || email == null){
+            return true;
+        }
+        long[] hashes = hash(email);
+        for(int i=0;i<hashCount;i++){
+            if(!getBit(index(hashes, i))){
+                skippedCounter.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String email){
+        if(email == null){
+            return;
+        }
+        long[] hashes = hash(email);
+        for(int i=0;i<hashCount;i++){
+            setBit(index(hashes, i));
+        }
+        insertions.incrementAndGet();
+    }
+
+    //필터에서 있다고 나온 뒤 DB 조회 결과를 기록한다.
+    public void recordLookup(boolean duplicate){
+        if(duplicate){
+            duplicateCounter.increment();
+        } else {
+            falsePositiveCounter.increment();
+        }
+    }
+
+    //현재 들어간 이메일 수 기준 예상 오탐률 (1 - e^(-kn/m))^k
+    private double expectedFpp(){
+        return Math.pow(1 - Math.exp(-hashCount * (double) insertions.get() / bitSize), hashCount);
+    }
+
+    private long index(long[] hashes, int i){
+        return Math.floorMod(hashes[0] + i * hashes[1], bitSize);
+    }
+
+    private boolean getBit(long index){
+        return (bits.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    private void setBit(long index){
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long value;
+        do {
+            value = bits.get(word);
+            if((value & mask) != 0){
+                return;
+            }
+        } while(!bits.compareAndSet(word, value, value | mask));
+    }
+
+    //MySQL 기본 collation 이 대소문자를 구분하지 않으므로 소문자로 맞춘 뒤 해시한다.
+    private long[] hash(String email){
+        byte[] bytes = email.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        long h1 = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h1 ^= b;
+            h1 *= 0x100000001b3L;
+        }
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L);
+        return new long[]{mix(h1), h2 | 1};
+    }
+
+    private long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
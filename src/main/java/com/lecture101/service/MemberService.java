@@ -1,10 +1,13 @@
 package com.lecture101.service;
 
+import com.lecture101.config.MemberPrincipal;
 import com.lecture101.entity.Member;
 import com.lecture101.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,17 +16,34 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 @Transactional
 @RequiredArgsConstructor
-public class MemberService implements UserDetailsService {
+public class MemberService implements UserDetailsService, UserDetailsPasswordService {
 
     private final MemberRepository memberRepository;
 
+    private final MemberEmailFilter memberEmailFilter;
+
     public Member saveMember(Member member){
         validateDuplicateMember(member);
-        return memberRepository.save(member);
+
+        //동시에 같은 이메일로 가입하면 email 유니크 제약으로 막는다.
+        Member savedMember;
+        try {
+            savedMember = memberRepository.saveAndFlush(member);
+        } catch (DataIntegrityViolationException e){
+            throw new IllegalStateException("이미 가입된 회원입니다.");
+        }
+        memberEmailFilter.put(savedMember.getEmail());
+        return savedMember;
     }
 
+    //필터에 없는 이메일은 확실히 가입되지 않았으므로 조회하지 않는다.
     private void validateDuplicateMember(Member member){
+        if(!memberEmailFilter.mightContain(member.getEmail())){
+            return;
+        }
+
         Member findMember = memberRepository.findByEmail(member.getEmail());
+        memberEmailFilter.recordLookup(findMember != null);
         if(findMember != null){
             throw new IllegalStateException("이미 가입된 회원입니다.");
         }
@@ -38,11 +58,17 @@ public class MemberService implements UserDetailsService {
             throw new UsernameNotFoundException(email);
         }
 
-        return User.builder()
-                .username(member.getEmail())
-                .password(member.getPassword())
-                .roles(member.getRole().toString())
-                .build();
+        return new MemberPrincipal(member.getId(), member.getEmail(), member.getPassword(),
+                AuthorityUtils.createAuthorityList("ROLE_" + member.getRole().toString()));
+    }
+
+    //로그인 성공 시 BCrypt strength 가 설정과 다른 해시를 새 해시로 바꾼다.
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        MemberPrincipal principal = (MemberPrincipal) user;
+        memberRepository.updatePassword(principal.getMemberId(), newPassword);
+        return new MemberPrincipal(principal.getMemberId(), principal.getUsername(), newPassword,
+                principal.getAuthorities());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,252 @@
+package com.lecture101.service;
+
+import com.lecture101.constant.OrderIntakeStatus;
+import com.lecture101.dto.OrderDto;
+import com.lecture101.dto.OrderIntakeDto;
+import com.lecture101.exception.OrderQueueFullException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.java.Log;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * 주문 접수 큐. 요청 스레드는 주문을 큐에 넣고 접수 번호만 돌려받으며,
+ * 저장 스레드가 큐에 쌓인 주문을 모아 한 트랜잭션으로 저장한다.
+ * order.intake.async=true 일 때만 사용한다.
+ */
+@Component
+@Log
+public class OrderIntakeQueue {
+
+    private static final String FAIL_MESSAGE = "주문할 수 없는 상품이거나 재고가 부족합니다.";
+
+    @Value("${order.intake.async:false}")
+    private boolean enabled;
+
+    @Value("${order.intake.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${order.intake.writers:2}")
+    private int writers;
+
+    @Value("${order.intake.batch-size:100}")
+    private int batchSize;
+
+    @Value("${order.intake.status-ttl-seconds:600}")
+    private long statusTtlSeconds;
+
+    private final OrderService orderService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    private BlockingQueue<OrderRequest> queue;
+
+    private ExecutorService executor;
+
+    private volatile boolean running;
+
+    private volatile long lastExpiredAt;
+
+    public OrderIntakeQueue(OrderService orderService, TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry){
+        this.orderService = orderService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start(){
+        if(!enabled){
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("order.intake.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+
+        running = true;
+        executor = Executors.newFixedThreadPool(writers, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for(int i=0;i<writers;i++){
+            executor.execute(this::drain);
+        }
+    }
+
+    //종료 시 큐에 남은 주문까지 저장한 뒤 멈춘다.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if(executor == null){
+            return;
+        }
+        running = false;
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    public String submit(OrderDto orderDto, Long memberId){
+        Ticket ticket = new Ticket(memberId);
+        String token = UUID.randomUUID().toString();
+        tickets.put(token, ticket);
+
+        if(!queue.offer(new OrderRequest(ticket, orderDto, memberId))){
+            tickets.remove(token);
+            throw new OrderQueueFullException("주문이 많아 잠시 후 다시 시도해주세요.");
+        }
+        return token;
+    }
+
+    /**
+     * 본인이 접수한 주문의 처리 상태를 돌려준다. 접수 번호가 없거나 다른 회원의 주문이면 null.
+     */
+    public OrderIntakeDto getStatus(String token, Long memberId){
+        Ticket ticket = tickets.get(token);
+        if(ticket == null || !ticket.memberId.equals(memberId)){
+            return null;
+        }
+
+        OrderIntakeDto orderIntakeDto = new OrderIntakeDto();
+        orderIntakeDto.setToken(token);
+        orderIntakeDto.setStatus(ticket.status);
+        orderIntakeDto.setOrderId(ticket.orderId);
+        orderIntakeDto.setMessage(ticket.message);
+        return orderIntakeDto;
+    }
+
+    private void drain(){
+        List<OrderRequest> batch = new ArrayList<>(batchSize);
+        while(running || !queue.isEmpty()){
+            try {
+                expire();
+                OrderRequest first = queue.poll(1, TimeUnit.SECONDS);
+                if(first == null){
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e){
+                log.severe("주문 저장 실패: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<OrderRequest> batch){
+        List<Long> orderIds;
+        try {
+            orderIds = transactionTemplate.execute(status -> {
+                List<Long> ids = new ArrayList<>();
+                for (OrderRequest request : batch) {
+                    ids.add(orderService.tryOrder(request.orderDto, request.memberId));
+                }
+                return ids;
+            });
+        } catch (RuntimeException e){
+            //한 건 때문에 배치 전체가 실패하면 한 건씩 다시 저장해서 나머지 주문은 살린다.
+            log.warning("주문 일괄 저장 실패, 한 건씩 다시 저장합니다: " + e.getMessage());
+            for (OrderRequest request : batch) {
+                try {
+                    complete(request.ticket, transactionTemplate.execute(
+                            status -> orderService.tryOrder(request.orderDto, request.memberId)));
+                } catch (RuntimeException ex){
+                    request.ticket.fail(ex.getMessage());
+                }
+            }
+            return;
+        }
+
+        for(int i=0;i<batch.size();i++){
+            complete(batch.get(i).ticket, orderIds.get(i));
+        }
+    }
+
+    private void complete(Ticket ticket, Long orderId){
+        if(orderId == null){
+            ticket.fail(FAIL_MESSAGE);
+        } else {
+            ticket.complete(orderId);
+        }
+    }
+
+    //처리가 끝난 접수 번호는 일정 시간이 지나면 지운다. 여러 저장 스레드가 동시에 돌지 않도록 1초에 한 번만 정리한다.
+    private void expire(){
+        long now = System.currentTimeMillis();
+        if(now - lastExpiredAt < 1000){
+            return;
+        }
+        lastExpiredAt = now;
+        long expiredBefore = now - statusTtlSeconds * 1000;
+        tickets.values().removeIf(ticket -> ticket.status != OrderIntakeStatus.PENDING
+                && ticket.finishedAt < expiredBefore);
+    }
+
+    private static class OrderRequest {
+
+        private final Ticket ticket;
+
+        private final OrderDto orderDto;
+
+        private final Long memberId;
+
+        private OrderRequest(Ticket ticket, OrderDto orderDto, Long memberId){
+            this.ticket = ticket;
+            this.orderDto = orderDto;
+            this.memberId = memberId;
+        }
+
+    }
+
+    private static class Ticket {
+
+        private final Long memberId;
+
+        private volatile OrderIntakeStatus status = OrderIntakeStatus.PENDING;
+
+        private volatile Long orderId;
+
+        private volatile String message;
+
+        private volatile long finishedAt;
+
+        private Ticket(Long memberId){
+            this.memberId = memberId;
+        }
+
+        private void complete(Long orderId){
+            this.orderId = orderId;
+            this.finishedAt = System.currentTimeMillis();
+            this.status = OrderIntakeStatus.COMPLETED;
+        }
+
+        private void fail(String message){
+            this.message = message;
+            this.finishedAt = System.currentTimeMillis();
+            this.status = OrderIntakeStatus.FAILED;
+        }
+
+    }
+
+}
@@ -4,21 +4,27 @@ import com.lecture101.dto.OrderDto;
 import com.lecture101.dto.OrderHistDto;
 import com.lecture101.dto.OrderItemDto;
 import com.lecture101.entity.*;
-import com.lecture101.repository.ItemImgRepository;
+import com.lecture101.event.OrderChangedEvent;
 import com.lecture101.repository.ItemRepository;
 import com.lecture101.repository.MemberRepository;
+import com.lecture101.repository.OrderItemRepository;
 import com.lecture101.repository.OrderRepository;
+import com.lecture101.repository.PageCountStrategy;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.thymeleaf.util.StringUtils;
 
 import javax.persistence.EntityNotFoundException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional
@@ -31,72 +37,102 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
 
-    private final ItemImgRepository itemImgRepository;
+    private final OrderItemRepository orderItemRepository;
 
-    public Long order(OrderDto orderDto, String email){
+    private final PageCountStrategy pageCountStrategy;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ItemStockService itemStockService;
+
+    public Long order(OrderDto orderDto, Long memberId){
 
         Item item = itemRepository.findById(orderDto.getItemId())
                 .orElseThrow(EntityNotFoundException::new);
 
-        Member member = memberRepository.findByEmail(email);
+        Member member = memberRepository.getReferenceById(memberId);
 
         List<OrderItem> orderItemList = new ArrayList<>();
         OrderItem orderItem = OrderItem.createOrderItem(item, orderDto.getCount());
         orderItemList.add(orderItem);
         Order order = Order.createOrder(member, orderItemList);
+        removeStock(orderItemList);
+        orderRepository.save(order);
+
+        eventPublisher.publishEvent(new OrderChangedEvent(memberId));
+        return order.getId();
+    }
+
+    /**
+     * 주문 접수 큐에서 여러 주문을 한 트랜잭션으로 저장할 때 사용한다.
+     * 상품이 없거나 재고가 부족하면 예외 대신 null 을 돌려줘서 같은 배치의 다른 주문은 그대로 저장되게 한다.
+     */
+    public Long tryOrder(OrderDto orderDto, Long memberId){
+        Item item = itemRepository.findById(orderDto.getItemId()).orElse(null);
+        if(item == null || !itemStockService.tryRemoveStock(item, orderDto.getCount())){
+            return null;
+        }
+
+        Member member = memberRepository.getReferenceById(memberId);
+
+        List<OrderItem> orderItemList = new ArrayList<>();
+        orderItemList.add(OrderItem.createOrderItem(item, orderDto.getCount()));
+        Order order = Order.createOrder(member, orderItemList);
         orderRepository.save(order);
 
+        eventPublisher.publishEvent(new OrderChangedEvent(memberId));
         return order.getId();
     }
 
     @Transactional(readOnly = true)
-    public Page<OrderHistDto> getOrderList(String email, Pageable pageable) {
-
-        List<Order> orders = orderRepository.findOrders(email, pageable);
-        Long totalCount = orderRepository.countOrder(email);
-
-        List<OrderHistDto> orderHistDtos = new ArrayList<>();
-
-        for (Order order : orders) {
-            OrderHistDto orderHistDto = new OrderHistDto(order);
-            List<OrderItem> orderItems = order.getOrderItems();
-            for (OrderItem orderItem : orderItems) {
-                ItemImg itemImg = itemImgRepository.findByItemIdAndRepimgYn
-                        (orderItem.getItem().getId(), "Y");
-                OrderItemDto orderItemDto =
-                        new OrderItemDto(orderItem, itemImg.getImgUrl());
-                orderHistDto.addOrderItemDto(orderItemDto);
+    public Page<OrderHistDto> getOrderList(Long memberId, Pageable pageable) {
+
+        //주문 목록 1회, 주문 상품(상품명, 대표 이미지 포함) 1회 조회로 화면 DTO 를 만든다.
+        List<OrderHistDto> orderHistDtos = orderRepository.findOrderHistDtos(memberId, pageable);
+
+        if(!orderHistDtos.isEmpty()){
+            Map<Long, OrderHistDto> orderHistDtoMap = new LinkedHashMap<>();
+            for (OrderHistDto orderHistDto : orderHistDtos) {
+                orderHistDtoMap.put(orderHistDto.getOrderId(), orderHistDto);
             }
 
-            orderHistDtos.add(orderHistDto);
+            List<OrderItemDto> orderItemDtos =
+                    orderItemRepository.findOrderItemDtos(new ArrayList<>(orderHistDtoMap.keySet()));
+            for (OrderItemDto orderItemDto : orderItemDtos) {
+                orderHistDtoMap.get(orderItemDto.getOrderId()).addOrderItemDto(orderItemDto);
+            }
         }
 
-        return new PageImpl<OrderHistDto>(orderHistDtos, pageable, totalCount);
+        return PageableExecutionUtils.getPage(orderHistDtos, pageable, () -> pageCountStrategy.count(
+                PageCountStrategy.ORDER, String.valueOf(memberId),
+                () -> orderRepository.countOrder(memberId),
+                limit -> orderRepository.findOrderIds(memberId, PageRequest.of(0, limit)).size()));
     }
 
     @Transactional(readOnly = true)
-    public boolean validateOrder(Long orderId, String email){
-        Member curMember = memberRepository.findByEmail(email);
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(EntityNotFoundException::new);
-        Member savedMember = order.getMember();
-
-        if(!StringUtils.equals(curMember.getEmail(), savedMember.getEmail())){
-            return false;
+    public boolean validateOrder(Long orderId, Long memberId){
+        Long savedMemberId = orderRepository.findMemberIdById(orderId);
+        if(savedMemberId == null){
+            throw new EntityNotFoundException();
         }
 
-        return true;
+        return savedMemberId.equals(memberId);
     }
 
     public void cancelOrder(Long orderId){
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(EntityNotFoundException::new);
         order.cancelOrder();
+
+        List<OrderItem> orderItemList = sortByItemId(order.getOrderItems());
+        for (OrderItem orderItem : orderItemList) {
+            itemStockService.addStock(orderItem.getItem(), orderItem.getCount());
+        }
     }
 
-    public Long orders(List<OrderDto> orderDtoList, String email){
+    public Long orders(List<OrderDto> orderDtoList, Long memberId){
 
-        Member member = memberRepository.findByEmail(email);
+        Member member = memberRepository.getReferenceById(memberId);
         List<OrderItem> orderItemList = new ArrayList<>();
 
         for (OrderDto orderDto : orderDtoList) {
@@ -108,9 +144,24 @@ public class OrderService {
         }
 
         Order order = Order.createOrder(member, orderItemList);
+        removeStock(orderItemList);
         orderRepository.save(order);
 
+        eventPublisher.publishEvent(new OrderChangedEvent(memberId));
         return order.getId();
     }
 
-}
\ No newline at end of file
+    //여러 상품을 주문할 때 교착 상태가 생기지 않도록 항상 상품 아이디 순서로 재고 행을 잠근다.
+    private void removeStock(List<OrderItem> orderItemList){
+        for (OrderItem orderItem : sortByItemId(orderItemList)) {
+            itemStockService.removeStock(orderItem.getItem(), orderItem.getCount());
+        }
+    }
+
+    private List<OrderItem> sortByItemId(List<OrderItem> orderItemList){
+        List<OrderItem> sorted = new ArrayList<>(orderItemList);
+        sorted.sort(Comparator.comparing(orderItem -> orderItem.getItem().getId()));
+        return sorted;
+    }
+
+}
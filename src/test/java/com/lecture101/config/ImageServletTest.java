@@ -0,0 +1,116 @@
+package com.lecture101.config;
+
+import com.lecture101.service.FileService;
+import com.lecture101.service.ImageHotSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ImageServletTest {
+
+    @TempDir
+    Path root;
+
+    FileService fileService;
+
+    ImageServlet imageServlet;
+
+    @BeforeEach
+    public void setUp() throws Exception{
+        Files.createDirectories(root.resolve("item"));
+        Files.write(root.resolve("item/test.jpg"), "0123456789".getBytes(StandardCharsets.UTF_8));
+
+        fileService = new FileService(1, 10);
+        imageServlet = new ImageServlet(root, fileService, new ImageHotSet(new SimpleMeterRegistry()), 60);
+        imageServlet.init(new MockServletConfig());
+    }
+
+    @AfterEach
+    public void tearDown(){
+        fileService.stop();
+    }
+
+    private MockHttpServletResponse get(String... headers) throws Exception{
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/item/test.jpg");
+        request.setServletPath("/images");
+        request.setPathInfo("/item/test.jpg");
+        for(int i=0;i<headers.length;i+=2){
+            request.addHeader(headers[i], headers[i + 1]);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        imageServlet.service(request, response);
+        return response;
+    }
+
+    @Test
+    @DisplayName("Range 헤더 해석 테스트")
+    public void parseRangeTest(){
+        //마지막 n 바이트
+        assertArrayEquals(new long[]{7, 9}, ImageServlet.parseRange("bytes=-3", 10));
+        assertArrayEquals(new long[]{0, 9}, ImageServlet.parseRange("bytes=-30", 10));
+        //끝을 생략하면 파일 끝까지
+        assertArrayEquals(new long[]{4, 9}, ImageServlet.parseRange("bytes=4-", 10));
+        assertArrayEquals(new long[]{2, 9}, ImageServlet.parseRange("bytes=2-100", 10));
+        //파일 범위를 벗어나면 416
+        assertEquals(0, ImageServlet.parseRange("bytes=10-", 10).length);
+        assertEquals(0, ImageServlet.parseRange("bytes=-0", 10).length);
+        //여러 범위, 잘못된 형식은 전체 응답
+        assertNull(ImageServlet.parseRange("bytes=0-1,4-5", 10));
+        assertNull(ImageServlet.parseRange("bytes=5-2", 10));
+        assertNull(ImageServlet.parseRange("items=0-1", 10));
+    }
+
+    @Test
+    @DisplayName("Range 요청 응답 테스트")
+    public void rangeTest() throws Exception{
+        MockHttpServletResponse response = get("Range", "bytes=-3");
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 7-9/10", response.getHeader("Content-Range"));
+        assertEquals("789", response.getContentAsString());
+
+        response = get("Range", "bytes=20-");
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader("Content-Range"));
+
+        response = get("Range", "bytes=0-1,4-5");
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("If-Range 가 다르면 전체 응답 테스트")
+    public void ifRangeMismatchTest() throws Exception{
+        MockHttpServletResponse response = get("Range", "bytes=0-1", "If-Range", "\"other\"");
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("Content-Range"));
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("If-None-Match 일치 시 304 응답 테스트")
+    public void notModifiedTest() throws Exception{
+        String etag = get().getHeader("ETag");
+
+        MockHttpServletResponse response = get("If-None-Match", etag);
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        response = get("If-None-Match", "W/" + etag);
+        assertEquals(304, response.getStatus());
+    }
+
+}
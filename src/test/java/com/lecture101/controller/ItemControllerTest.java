@@ -1,16 +1,30 @@
 package com.lecture101.controller;
 
+import com.lecture101.constant.ItemSellStatus;
+import com.lecture101.entity.Item;
+import com.lecture101.event.ItemChangedEvent;
+import com.lecture101.repository.ItemRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -21,6 +35,25 @@ class ItemControllerTest {
     @Autowired
     MockMvc mockMvc;
 
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    private Item createItem(String itemNm){
+        Item item = new Item();
+        item.setItemNm(itemNm);
+        item.setPrice(10000);
+        item.setItemDetail("테스트 상품 상세 설명");
+        item.setItemSellStatus(ItemSellStatus.SELL);
+        item.setStockNumber(100);
+        item.setRepImgUrl("/images/item/test.jpg");
+        item.setRegTime(LocalDateTime.now());
+        item.setUpdateTime(LocalDateTime.now());
+        return item;
+    }
+
     @Test
     @DisplayName("상품 등록 페이지 권한 테스트")
     @WithMockUser(username = "admin", roles = "ADMIN")
@@ -38,4 +71,76 @@ class ItemControllerTest {
                 .andDo(print())
                 .andExpect(status().isForbidden());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("메인 페이지 변경 없을 때 304 응답 테스트")
+    @WithMockUser(username = "user", roles = "USER")
+    public void mainNotModifiedTest() throws Exception{
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("메인 페이지 조회 사이에 상품이 바뀌면 새 목록과 새 ETag 응답 테스트")
+    @WithMockUser(username = "user", roles = "USER")
+    public void mainModifiedTest() throws Exception{
+        Item oldItem = itemRepository.save(createItem("이전 상품"));
+        Item newItem = null;
+        try {
+            //목록 캐시에 이전 목록이 들어간다.
+            String etag = mockMvc.perform(MockMvcRequestBuilders.get("/"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+            newItem = itemRepository.save(createItem("새 상품"));
+            eventPublisher.publishEvent(new ItemChangedEvent(newItem.getId(), newItem.getItemNm(),
+                    newItem.getCreatedBy(), true));
+
+            String newEtag = mockMvc.perform(MockMvcRequestBuilders.get("/").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(containsString("새 상품")))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertNotEquals(etag, newEtag);
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/").header(HttpHeaders.IF_NONE_MATCH, newEtag))
+                    .andExpect(status().isNotModified());
+        } finally {
+            itemRepository.delete(oldItem);
+            if(newItem != null){
+                itemRepository.delete(newItem);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("상품 API 필드 선택 조회 테스트")
+    @Transactional
+    public void itemApiFieldsTest() throws Exception{
+        Item item = itemRepository.saveAndFlush(createItem("테스트 상품"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/" + item.getId())
+                        .param("fields", "itemNm,price"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(item.getId()))
+                .andExpect(jsonPath("$.itemNm").value("테스트 상품"))
+                .andExpect(jsonPath("$.itemDetail").doesNotExist());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/" + item.getId())
+                        .param("fields", "unknown"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/items/" + (item.getId() + 1000)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("존재하지 않는 상품 입니다."));
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.lecture101.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@TestPropertySource(locations="classpath:application-test.properties")
+class ItemSearchIndexTest {
+
+    @Autowired
+    ItemSearchIndex itemSearchIndex;
+
+    @AfterEach
+    public void clear(){
+        for(long id=900001L;id<=900003L;id++){
+            itemSearchIndex.remove(id);
+        }
+    }
+
+    @Test
+    @DisplayName("한글 상품명 n-gram 검색 테스트")
+    public void searchItemNmTest(){
+        itemSearchIndex.index(900001L, "파이썬 기초 클래스", "admin@test.com");
+        itemSearchIndex.index(900002L, "자바 스프링 클래스", "admin@test.com");
+        itemSearchIndex.index(900003L, "스프링 부트 심화", "user@test.com");
+
+        List<Long> result = itemSearchIndex.search(ItemSearchIndex.ITEM_NM, "스프링");
+        assertEquals(Arrays.asList(900003L, 900002L), result);
+
+        result = itemSearchIndex.search(ItemSearchIndex.ITEM_NM, "없는 상품");
+        assertEquals(Collections.emptyList(), result);
+    }
+
+    @Test
+    @DisplayName("상품명 수정 시 색인 갱신 테스트")
+    public void reindexTest(){
+        itemSearchIndex.index(900001L, "파이썬 기초 클래스", "admin@test.com");
+        itemSearchIndex.index(900001L, "Kotlin 기초 클래스", "admin@test.com");
+
+        assertEquals(Collections.emptyList(), itemSearchIndex.search(ItemSearchIndex.ITEM_NM, "파이썬"));
+        assertEquals(Collections.singletonList(900001L), itemSearchIndex.search(ItemSearchIndex.ITEM_NM, "kotlin"));
+        assertEquals(Collections.singletonList(900001L), itemSearchIndex.search(ItemSearchIndex.CREATED_BY, "admin"));
+    }
+
+}
@@ -2,12 +2,15 @@ package com.lecture101.service;
 
 import com.lecture101.constant.ItemSellStatus;
 import com.lecture101.dto.CartItemDto;
+import com.lecture101.dto.CartOrderDto;
 import com.lecture101.entity.CartItem;
 import com.lecture101.entity.Item;
 import com.lecture101.entity.Member;
 import com.lecture101.repository.CartItemRepository;
 import com.lecture101.repository.ItemRepository;
 import com.lecture101.repository.MemberRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,9 +18,14 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @Transactional
@@ -36,6 +44,9 @@ class CartServiceTest {
     @Autowired
     CartItemRepository cartItemRepository;
 
+    @PersistenceContext
+    EntityManager em;
+
     public Item saveItem(){
         Item item = new Item();
         item.setItemNm("테스트 상품");
@@ -62,7 +73,7 @@ class CartServiceTest {
         cartItemDto.setCount(5);
         cartItemDto.setItemId(item.getId());
 
-        Long cartItemId = cartService.addCart(cartItemDto, member.getEmail());
+        Long cartItemId = cartService.addCart(cartItemDto, member.getId());
         CartItem cartItem = cartItemRepository.findById(cartItemId)
                 .orElseThrow(EntityNotFoundException::new);
 
@@ -70,4 +81,55 @@ class CartServiceTest {
         assertEquals(cartItemDto.getCount(), cartItem.getCount());
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("같은 상품 장바구니 다시 담기 테스트")
+    public void addCartTwice(){
+        Item item = saveItem();
+        Member member = saveMember();
+
+        CartItemDto cartItemDto = new CartItemDto();
+        cartItemDto.setCount(2);
+        cartItemDto.setItemId(item.getId());
+
+        Long cartItemId = cartService.addCart(cartItemDto, member.getId());
+        assertEquals(cartItemId, cartService.addCart(cartItemDto, member.getId()));
+
+        em.clear();
+        CartItem cartItem = cartItemRepository.findById(cartItemId)
+                .orElseThrow(EntityNotFoundException::new);
+        assertEquals(4, cartItem.getCount());
+        assertEquals(1, cartItemRepository.count());
+    }
+
+    @Test
+    @DisplayName("장바구니 상품 주문 쿼리 횟수 테스트")
+    public void orderCartItemStatementCountTest(){
+        Member member = saveMember();
+        List<CartOrderDto> cartOrderDtoList = new ArrayList<>();
+        for(int i=0;i<5;i++){
+            CartItemDto cartItemDto = new CartItemDto();
+            cartItemDto.setItemId(saveItem().getId());
+            cartItemDto.setCount(1);
+
+            CartOrderDto cartOrderDto = new CartOrderDto();
+            cartOrderDto.setCartItemId(cartService.addCart(cartItemDto, member.getId()));
+            cartOrderDtoList.add(cartOrderDto);
+        }
+
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        cartService.orderCartItem(cartOrderDtoList, member.getId());
+        em.flush();
+
+        //장바구니 상품(상품, 장바구니 포함) 조회 1 + 재고 차감 5
+        //+ 아이디 할당 1 (할당 구간이 바뀌면 2) + 주문/주문 상품 insert batch 2 + 장바구니 상품 삭제 1
+        assertEquals(6, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 11);
+        assertEquals(0, cartItemRepository.count());
+    }
+
+}
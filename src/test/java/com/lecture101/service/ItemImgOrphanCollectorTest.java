@@ -0,0 +1,157 @@
+package com.lecture101.service;
+
+import com.lecture101.entity.ItemImg;
+import com.lecture101.repository.ItemImgRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//정리 작업은 별도 스레드에서 DB 를 조회하므로 테스트 데이터를 커밋하고 끝나면 직접 지운다.
+@SpringBootTest
+@TestPropertySource(locations="classpath:application-test.properties",
+        properties = {"item.img.gc.enabled=false", "item.img.layout-migration.enabled=false",
+                "item.img.gc.grace-minutes=10", "item.img.gc.max-deletes-per-second=1000"})
+class ItemImgOrphanCollectorTest {
+
+    private static final String REFERENCED = hashName('a');
+
+    private static final String UNREFERENCED = hashName('b');
+
+    private static final String RECENT = hashName('c');
+
+    private static Path uploadDir;
+
+    @Autowired
+    ItemImgOrphanCollector itemImgOrphanCollector;
+
+    @Autowired
+    ItemImgFileCleaner itemImgFileCleaner;
+
+    @Autowired
+    ItemImgRepository itemImgRepository;
+
+    @Autowired
+    FileService fileService;
+
+    ItemImg itemImg;
+
+    @DynamicPropertySource
+    static void itemImgLocation(DynamicPropertyRegistry registry) throws IOException {
+        uploadDir = Files.createTempDirectory("item-img-gc");
+        registry.add("itemImgLocation", () -> uploadDir.toString());
+    }
+
+    private static String hashName(char c){
+        StringBuilder name = new StringBuilder();
+        for(int i=0;i<64;i++){
+            name.append(c);
+        }
+        return name.append(".jpg").toString();
+    }
+
+    private static String variantName(String imgName){
+        return imgName.replace(".jpg", "_card.jpg");
+    }
+
+    private Path createFile(String fileName, boolean old) throws IOException {
+        Path file = fileService.shardedPath(uploadDir, fileName);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[]{1,2,3,4});
+        if(old){
+            Files.setLastModifiedTime(file,
+                    FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+        }
+        return file;
+    }
+
+    @BeforeEach
+    public void setUp(){
+        itemImg = new ItemImg();
+        itemImg.setImgName(REFERENCED);
+        itemImg.setOriImgName("referenced.jpg");
+        itemImg.setImgUrl("/images/item/" + REFERENCED);
+        itemImg.setRepimgYn("Y");
+        itemImgRepository.save(itemImg);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        itemImgRepository.delete(itemImg);
+        FileSystemUtils.deleteRecursively(uploadDir);
+        Files.createDirectories(uploadDir);
+    }
+
+    @Test
+    @DisplayName("참조되지 않는 이미지 정리 테스트")
+    public void collectTest() throws Exception {
+        Path referenced = createFile(REFERENCED, true);
+        Path referencedVariant = createFile(variantName(REFERENCED), true);
+        Path unreferenced = createFile(UNREFERENCED, true);
+        Path unreferencedVariant = createFile(variantName(UNREFERENCED), true);
+        Path recent = createFile(RECENT, false);
+
+        itemImgOrphanCollector.collect();
+
+        //참조되는 원본과, 원본이 남아 있는 축소 이미지는 유지
+        assertTrue(Files.exists(referenced));
+        assertTrue(Files.exists(referencedVariant));
+        //참조되지 않고 유예 시간이 지난 원본은 축소 이미지와 함께 삭제
+        assertFalse(Files.exists(unreferenced));
+        assertFalse(Files.exists(unreferencedVariant));
+        //유예 시간 안의 파일은 DB 반영 전일 수 있으므로 유지
+        assertTrue(Files.exists(recent));
+    }
+
+    @Test
+    @DisplayName("교체된 이미지 삭제 시 참조 및 유예 시간 확인 테스트")
+    public void deleteIfUnreferencedTest() throws Exception {
+        Path referenced = createFile(REFERENCED, true);
+        Path recent = createFile(RECENT, false);
+        Path unreferenced = createFile(UNREFERENCED, true);
+
+        assertFalse(itemImgFileCleaner.deleteIfUnreferenced(REFERENCED));
+        assertFalse(itemImgFileCleaner.deleteIfUnreferenced(RECENT));
+        assertTrue(itemImgFileCleaner.deleteIfUnreferenced(UNREFERENCED));
+
+        assertTrue(Files.exists(referenced));
+        assertTrue(Files.exists(recent));
+        assertFalse(Files.exists(unreferenced));
+    }
+
+    @Test
+    @DisplayName("삭제 확인 중인 파일 유지 및 되돌리기 테스트")
+    public void deleteIfTest() throws Exception {
+        //옮긴 지 얼마 안 된 삭제 확인 중 파일은 수정 시각이 오래됐어도 정리하지 않는다.
+        Path deleting = uploadDir.resolve("delete-" + System.currentTimeMillis() + "-test.tmp");
+        Files.write(deleting, new byte[]{1,2,3,4});
+        Files.setLastModifiedTime(deleting,
+                FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+
+        itemImgOrphanCollector.collect();
+        assertTrue(Files.exists(deleting));
+
+        //확인에 실패하면 원래 위치로 되돌린다.
+        Path unreferenced = createFile(UNREFERENCED, true);
+        assertFalse(fileService.deleteIf(uploadDir.toString(), UNREFERENCED, movedFile -> false));
+        assertTrue(Files.exists(unreferenced));
+        assertTrue(fileService.deleteIf(uploadDir.toString(), UNREFERENCED, movedFile -> true));
+        assertFalse(Files.exists(unreferenced));
+    }
+
+}
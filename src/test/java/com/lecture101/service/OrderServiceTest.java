@@ -3,24 +3,39 @@ package com.lecture101.service;
 import com.lecture101.constant.ItemSellStatus;
 import com.lecture101.constant.OrderStatus;
 import com.lecture101.dto.OrderDto;
+import com.lecture101.dto.OrderHistDto;
+import com.lecture101.dto.OrderItemDto;
 import com.lecture101.entity.Item;
 import com.lecture101.entity.Member;
 import com.lecture101.entity.Order;
 import com.lecture101.entity.OrderItem;
+import com.lecture101.exception.OutOfStockException;
 import com.lecture101.repository.ItemRepository;
+import com.lecture101.repository.ItemStockShardRepository;
 import com.lecture101.repository.MemberRepository;
 import com.lecture101.repository.OrderRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @Transactional
@@ -28,10 +43,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 class OrderServiceTest {
 
     @Autowired
-    private OrderService orderService;
+    OrderService orderService;
 
     @Autowired
-    private OrderRepository orderRepository;
+    OrderRepository orderRepository;
 
     @Autowired
     ItemRepository itemRepository;
@@ -39,13 +54,23 @@ class OrderServiceTest {
     @Autowired
     MemberRepository memberRepository;
 
-    public Item saveItem(){
+    @Autowired
+    ItemStockService itemStockService;
+
+    @Autowired
+    ItemStockShardRepository itemStockShardRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    public Item saveItem(int i){
         Item item = new Item();
-        item.setItemNm("테스트 상품");
+        item.setItemNm("테스트 상품" + i);
         item.setPrice(10000);
         item.setItemDetail("테스트 상품 상세 설명");
         item.setItemSellStatus(ItemSellStatus.SELL);
         item.setStockNumber(100);
+        item.setRepImgUrl("/images/item/test" + i + ".jpg");
         return itemRepository.save(item);
     }
 
@@ -53,20 +78,62 @@ class OrderServiceTest {
         Member member = new Member();
         member.setEmail("test@test.com");
         return memberRepository.save(member);
+    }
 
+    @Test
+    @DisplayName("구매 이력 조회 쿼리 횟수 테스트")
+    public void getOrderListStatementCountTest(){
+        Member member = saveMember();
+        List<Item> itemList = new ArrayList<>();
+        for(int i=0;i<3;i++){
+            itemList.add(saveItem(i));
+        }
+
+        for(int i=0;i<5;i++){
+            List<OrderDto> orderDtoList = new ArrayList<>();
+            for (Item item : itemList) {
+                OrderDto orderDto = new OrderDto();
+                orderDto.setItemId(item.getId());
+                orderDto.setCount(1);
+                orderDtoList.add(orderDto);
+            }
+            orderService.orders(orderDtoList, member.getId());
+        }
+
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<OrderHistDto> orderHistDtos = orderService.getOrderList(member.getId(), PageRequest.of(0, 4));
+
+        //주문 목록 + 주문 상품 + 전체 건수
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(4, orderHistDtos.getContent().size());
+        assertEquals(5, orderHistDtos.getTotalElements());
+        for (OrderHistDto orderHistDto : orderHistDtos.getContent()) {
+            assertEquals(3, orderHistDto.getOrderItemDtoList().size());
+            for (OrderItemDto orderItemDto : orderHistDto.getOrderItemDtoList()) {
+                String no = orderItemDto.getItemNm().substring("테스트 상품".length());
+                assertEquals("/images/item/test" + no + ".jpg", orderItemDto.getImgUrl());
+                assertEquals(1, orderItemDto.getCount());
+                assertEquals(10000, orderItemDto.getOrderPrice());
+            }
+        }
     }
 
     @Test
     @DisplayName("주문 테스트")
     public void order(){
-        Item item = saveItem();
+        Item item = saveItem(0);
         Member member = saveMember();
 
         OrderDto orderDto = new OrderDto();
         orderDto.setCount(10);
         orderDto.setItemId(item.getId());
 
-        Long orderId = orderService.order(orderDto, member.getEmail());
+        Long orderId = orderService.order(orderDto, member.getId());
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(EntityNotFoundException::new);
 
@@ -80,20 +147,95 @@ class OrderServiceTest {
     @Test
     @DisplayName("주문 취소 테스트")
     public void cancelOrder(){
-        Item item = saveItem();
+        Item item = saveItem(0);
         Member member = saveMember();
 
         OrderDto orderDto = new OrderDto();
         orderDto.setCount(10);
         orderDto.setItemId(item.getId());
-        Long orderId = orderService.order(orderDto, member.getEmail());
+        Long orderId = orderService.order(orderDto, member.getId());
 
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(EntityNotFoundException::new);
         orderService.cancelOrder(orderId);
 
         assertEquals(OrderStatus.CANCEL, order.getOrderStatus());
-        assertEquals(100, item.getStockNumber());
+        //재고는 update 문으로 바뀌므로 엔티티가 아니라 DB 값을 확인한다.
+        assertEquals(100, itemRepository.findStockNumber(item.getId()));
+    }
+
+    @Test
+    @DisplayName("재고 차감 및 주문 취소 시 재고 복구 테스트")
+    public void stockTest(){
+        Item item = saveItem(0);
+        Member member = saveMember();
+
+        OrderDto orderDto = new OrderDto();
+        orderDto.setItemId(item.getId());
+        orderDto.setCount(30);
+        Long orderId = orderService.order(orderDto, member.getId());
+        assertEquals(70, itemRepository.findStockNumber(item.getId()));
+
+        orderDto.setCount(71);
+        assertThrows(OutOfStockException.class, () -> orderService.order(orderDto, member.getId()));
+        assertEquals(70, itemRepository.findStockNumber(item.getId()));
+
+        orderService.cancelOrder(orderId);
+        assertEquals(100, itemRepository.findStockNumber(item.getId()));
+    }
+
+    @Test
+    @DisplayName("재고 분할 상품 주문 테스트")
+    public void shardedStockTest(){
+        Item item = saveItem(0);
+        item.setStockShardCount(4);
+        itemStockService.configure(item, 10);
+        Member member = saveMember();
+
+        //분할 행 하나(최대 3개)로는 부족해서 전체 분할 행에서 나눠 차감한다.
+        OrderDto orderDto = new OrderDto();
+        orderDto.setItemId(item.getId());
+        orderDto.setCount(9);
+        orderService.order(orderDto, member.getId());
+        em.flush();
+        assertEquals(1, itemStockService.getStockNumber(item));
+
+        orderDto.setCount(2);
+        assertThrows(OutOfStockException.class, () -> orderService.order(orderDto, member.getId()));
+        assertEquals(1, itemStockService.getStockNumber(item));
+    }
+
+    @Test
+    @DisplayName("같은 트랜잭션에서 분할 행 차감 후 전체 분할 행 차감 테스트")
+    public void shardedStockAfterUpdateTest(){
+        Item item = saveItem(0);
+        item.setStockShardCount(4);
+        //분할 행 3, 3, 2, 2 가 영속성 컨텍스트에 남는다.
+        itemStockService.configure(item, 10);
+        em.flush();
+
+        //update 문으로 0번 행에서 3개 차감 (DB 0, 3, 2, 2)
+        assertEquals(1, itemStockShardRepository.decreaseStock(item.getId(), 0, 3));
+
+        //한 행으로 부족해서 모든 분할 행에서 나눠 차감한다.
+        assertTrue(itemStockService.tryRemoveStock(item, 6));
+        em.flush();
+        em.clear();
+        assertEquals(1, itemStockShardRepository.sumStockNumber(item.getId()));
+    }
+
+    @Test
+    @DisplayName("일괄 주문 저장 시 재고 부족 주문만 제외 테스트")
+    public void tryOrderTest(){
+        Item item = saveItem(0);
+        Member member = saveMember();
+
+        OrderDto orderDto = new OrderDto();
+        orderDto.setItemId(item.getId());
+        orderDto.setCount(60);
+        assertNotNull(orderService.tryOrder(orderDto, member.getId()));
+        assertNull(orderService.tryOrder(orderDto, member.getId()));
+        assertEquals(40, itemRepository.findStockNumber(item.getId()));
     }
 
-}
\ No newline at end of file
+}